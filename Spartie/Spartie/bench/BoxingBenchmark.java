@@ -0,0 +1,89 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Heap allocated per loop iteration by numeric loops on the tree walker, resolved (as Main runs
+// it) and unresolved. A boxed Double is 16 bytes, so "boxes/iter" is the allocation expressed in
+// Doubles; with typed evaluation the resolved walker should stay near zero on every script except
+// "block local", whose body needs a fresh frame each iteration. Loop counters are whole numbers,
+// which the resolved walker keeps as longs.
+//
+// Usage: java BoxingBenchmark
+public class BoxingBenchmark {
+    private static final int ITERATIONS = 1_000_000;
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 5;
+    private static final int DOUBLE_BYTES = 16;
+
+    private static final Map<String, String> SCRIPTS = new LinkedHashMap<>();
+    static {
+        SCRIPTS.put("count", "for (var i = 0; i < " + ITERATIONS + "; i = i + 1) {}\n");
+        SCRIPTS.put("sum", """
+                var sum = 0;
+                for (var i = 0; i < %d; i = i + 1) {
+                    sum = sum + i;
+                }
+                print sum;
+                """.formatted(ITERATIONS));
+        SCRIPTS.put("polynomial", """
+                var total = 0;
+                var x = 0;
+                while (x < %d) {
+                    total = total + (x * x * 3 + x * 2 + 1) / 1000;
+                    x = x + 1;
+                }
+                print total;
+                """.formatted(ITERATIONS));
+        SCRIPTS.put("conditions", """
+                var count = 0;
+                for (var i = 0; i < %d; i = i + 1) {
+                    if (i / 2 > 10 & (i * 3 < %d | i == 7)) {
+                        count = count + 1;
+                    }
+                }
+                print count;
+                """.formatted(ITERATIONS, ITERATIONS));
+        SCRIPTS.put("counters", """
+                var hits = 0;
+                for (var i = 0; i < 1000; i = i + 1) {
+                    for (var j = 0; j < %d; j = j + 1) {
+                        if (i == j) {
+                            hits = hits + 1;
+                        }
+                    }
+                }
+                print hits;
+                """.formatted(ITERATIONS / 1000));
+        SCRIPTS.put("block local", """
+                var sum = 0;
+                for (var i = 0; i < %d; i = i + 1) {
+                    var half = i / 2;
+                    sum = sum + half;
+                }
+                print sum;
+                """.formatted(ITERATIONS));
+    }
+
+    public static void main(String[] args) {
+        System.out.printf("%-12s %-9s %10s %11s %9s%n", "Script", "walker", "B/iter", "boxes/iter", "ms");
+        for (Map.Entry<String, String> script : SCRIPTS.entrySet()) {
+            List<Statement> resolved = Measurement.parse(script.getValue());
+            int globalSlots = Resolver.resolve(resolved);
+            report(script.getKey(), "resolved", () -> new SpartieInterpreter().runResolved(resolved, globalSlots));
+
+            List<Statement> unresolved = Measurement.parse(script.getValue());
+            report(script.getKey(), "env", () -> new SpartieInterpreter().run(unresolved));
+        }
+    }
+
+    private static void report(String script, String walker, Runnable run) {
+        Measurement measurement = Measurement.of(run, WARMUP_RUNS, MEASURED_RUNS);
+        double bytes = measurement.meanBytes / ITERATIONS;
+        System.out.printf("%-12s %-9s %10.1f %11.2f %9.1f%n", script, walker, bytes, bytes / DOUBLE_BYTES,
+                measurement.meanMillis());
+    }
+}
@@ -0,0 +1,115 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Run time of the closure engine against the tree walker. The scripts are the Test3 programs
+// scaled up (the same prints, loops and nested conditions, run many times over) and generated
+// loops whose bodies are large, so that most of the time goes to dispatching on nodes rather
+// than to printing. Program output is discarded and compilation is done once, outside the timing.
+//
+// Usage: java ClosureBenchmark [file...]
+// Files given on the command line are benchmarked instead of the built-in scripts, for example
+// ../../Test3/*.txt.
+public class ClosureBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final int MEASURED_ITERATIONS = 10;
+
+    private static final Map<String, String> SCRIPTS = new LinkedHashMap<>();
+    static {
+        // Test3/test6.txt and test9.txt
+        SCRIPTS.put("test3 loops", """
+                var a = 5;
+                var b = 5;
+                var round = 0;
+                while (round < 2000) {
+                    var i = 0;
+                    while (i < 5) {
+                        print "Incrementing i: " + i;
+                        i = i + 1;
+                    }
+                    for (var j = 0; j < 10; j = j + 1) {
+                        print j;
+                    }
+                    if (a == b & 5 == 5) {
+                        print "They are equal";
+                        if (5 == 5) {
+                            print "5 is equal to 5";
+                        }
+                    }
+                    round = round + 1;
+                }
+                """);
+        SCRIPTS.put("generated 50 x 4k", generatedLoop(50, 4000));
+        SCRIPTS.put("generated 500 x 400", generatedLoop(500, 400));
+        SCRIPTS.put("generated nesting", generatedNesting(12, 20000));
+    }
+
+    // A loop whose body updates variables statements times, mixing arithmetic, comparisons and
+    // conditions
+    private static String generatedLoop(int statements, int iterations) {
+        StringBuilder source = new StringBuilder();
+        source.append("var a = 1;\nvar b = 2;\nvar c = 0;\nvar i = 0;\n");
+        source.append("while (i < ").append(iterations).append(") {\n");
+        for (int s = 0; s < statements; s++) {
+            switch (s % 4) {
+                case 0 -> source.append("    a = a + b * 2;\n");
+                case 1 -> source.append("    b = (a / 3) + ").append(s).append(";\n");
+                case 2 -> source.append("    if (a > b | c == 0) { c = c + 1; } else { c = c * 1; }\n");
+                default -> source.append("    var t").append(Character.toString('a' + s % 26)).append(" = !(c < a);\n");
+            }
+        }
+        source.append("    a = 1;\n    b = 2;\n    i = i + 1;\n}\nprint c;\n");
+        return source.toString();
+    }
+
+    // Blocks nested depth deep, each declaring a variable that the innermost block reads
+    private static String generatedNesting(int depth, int iterations) {
+        StringBuilder source = new StringBuilder();
+        source.append("var sum = 0;\nvar i = 0;\nwhile (i < ").append(iterations).append(") {\n");
+        for (int d = 0; d < depth; d++) {
+            source.append("var v").append(Character.toString('a' + d)).append(" = ").append(d).append(";\n{\n");
+        }
+        for (int d = 0; d < depth; d++) {
+            source.append("sum = sum + v").append(Character.toString('a' + d)).append(";\n");
+        }
+        source.append("}\n".repeat(depth));
+        source.append("i = i + 1;\n}\nprint sum;\n");
+        return source.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> scripts = SCRIPTS;
+        if (args.length > 0) {
+            scripts = new LinkedHashMap<>();
+            for (String arg : args) {
+                scripts.put(arg, Files.readString(Path.of(arg), StandardCharsets.UTF_8));
+            }
+        }
+
+        System.out.printf("%-24s %10s %10s %8s%n", "Script", "tree ms", "closure ms", "gain");
+        for (Map.Entry<String, String> script : scripts.entrySet()) {
+            List<Statement> tree = Measurement.parse(script.getValue());
+            int globalSlots = Resolver.resolve(tree);
+            Runnable closures = ClosureCompiler.compile(Measurement.parse(script.getValue()));
+
+            double treeTime = measure(() -> new SpartieInterpreter().runResolved(tree, globalSlots));
+            double closureTime = measure(closures);
+            System.out.printf("%-24s %10.2f %10.2f %7.1fx%n", script.getKey(), treeTime, closureTime,
+                    treeTime / closureTime);
+        }
+    }
+
+    // Average milliseconds per run
+    private static double measure(Runnable run) {
+        return Measurement.of(run, WARMUP_ITERATIONS, WARMUP_NANOS, MEASURED_ITERATIONS).meanMillis();
+    }
+}
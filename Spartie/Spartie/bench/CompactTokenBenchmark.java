@@ -0,0 +1,73 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.List;
+import java.util.Objects;
+
+// Retained heap of a scanned List<Token> against a CompactTokenBuffer, reported per million
+// tokens, plus parse time over both representations.
+//
+// Usage: java CompactTokenBenchmark
+// Run with a fixed heap (-Xms/-Xmx) for stable numbers.
+public class CompactTokenBenchmark {
+    public static void main(String[] args) {
+        String source = ScannerBenchmark.generate(8 * 1024 * 1024);
+
+        verify(source);
+
+        long baseline = usedHeap();
+        List<Token> tokens = new SpartieTableScanner(source).scan();
+        long listBytes = usedHeap() - baseline;
+
+        baseline = usedHeap();
+        CompactTokenBuffer buffer = new SpartieTableScanner(source).scanCompact();
+        long compactBytes = usedHeap() - baseline;
+
+        double millions = tokens.size() / 1e6;
+        System.out.printf("Tokens: %d%n", tokens.size());
+        System.out.printf("List<Token>          %6.1f bytes/token %8.1f MB per million tokens%n",
+                listBytes / (double) tokens.size(), listBytes / millions / 1e6);
+        System.out.printf("CompactTokenBuffer   %6.1f bytes/token %8.1f MB per million tokens%n",
+                compactBytes / (double) buffer.size(), compactBytes / millions / 1e6);
+        System.out.printf("Saved                %6.1f MB per million tokens%n",
+                (listBytes - compactBytes) / millions / 1e6);
+
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            new SpartieParser(tokens).parse();
+            long listTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            new SpartieParser(buffer.stream()).parse();
+            long compactTime = System.nanoTime() - start;
+
+            System.out.printf("Parse: List<Token> %6.1f ms, CompactTokenBuffer %6.1f ms%n",
+                    listTime / 1e6, compactTime / 1e6);
+        }
+    }
+
+    private static void verify(String source) {
+        List<Token> expected = new SpartieTableScanner(source).scan();
+        CompactTokenBuffer actual = new SpartieTableScanner(source).scanCompact();
+        if (expected.size() != actual.size()) {
+            throw new IllegalStateException("Token count differs: " + expected.size() + " vs " + actual.size());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            Token a = expected.get(i);
+            Token b = actual.token(i);
+            if (a.type != b.type || a.line != b.line || !Objects.equals(a.text, b.text)
+                    || !Objects.equals(a.literal, b.literal)) {
+                throw new IllegalStateException("Token " + i + " differs: " + a + " vs " + b);
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,119 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Run time of every execution engine (tree, specialize, flat, vm and jvm) on loop-heavy scripts, built from the
+// same shapes as source.sprty: counting for and while loops, nested if conditions with &, and a
+// variable declared in the loop body. Program output is discarded. Compilation is done once,
+// outside the timing.
+//
+// Usage: java EngineBenchmark [file...]
+// Files given on the command line are benchmarked instead of the built-in scripts.
+public class EngineBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    // The VM's dispatch loop needs longer than a few runs to reach its final compiled form
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final int MEASURED_ITERATIONS = 10;
+
+    private static final Map<String, String> SCRIPTS = new LinkedHashMap<>();
+    static {
+        SCRIPTS.put("counting loops", """
+                var a = 5;
+                var b = 5;
+                var total = 0;
+                for (var i = 0; i < 200000; i = i + 1) {
+                    total = total + i;
+                }
+                var i = 0;
+                while (i < 200000) {
+                    total = total + 1;
+                    i = i + 1;
+                }
+                print total;
+                """);
+        SCRIPTS.put("nested conditions", """
+                var a = 5;
+                var b = 5;
+                var equal = 0;
+                var i = 0;
+                while (i < 200000) {
+                    if (a == b & i / 2 > 10) {
+                        equal = equal + 1;
+                        if (5 == 5 | i < 0) {
+                            equal = equal + 1;
+                        }
+                    } else {
+                        equal = equal * 1;
+                    }
+                    i = i + 1;
+                }
+                print equal;
+                """);
+        SCRIPTS.put("nested loops", """
+                var sum = 0;
+                for (var i = 0; i < 400; i = i + 1) {
+                    for (var j = 0; j < 500; j = j + 1) {
+                        var step = i * j / 3;
+                        sum = sum + step;
+                    }
+                }
+                print sum;
+                """);
+        SCRIPTS.put("strings", """
+                var text = "";
+                var i = 0;
+                while (i < 20000) {
+                    if (i < 100) {
+                        text = text + "x";
+                    }
+                    text = "" + text;
+                    i = i + 1;
+                }
+                print text;
+                """);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> scripts = SCRIPTS;
+        if (args.length > 0) {
+            scripts = new LinkedHashMap<>();
+            for (String arg : args) {
+                scripts.put(arg, Files.readString(Path.of(arg), StandardCharsets.UTF_8));
+            }
+        }
+
+        System.out.printf("%-20s %10s %10s %10s %10s %10s %9s %8s %8s%n", "Script", "tree ms", "spec ms", "flat ms",
+                "vm ms", "jvm ms", "spec gain", "vm gain", "jvm gain");
+        for (Map.Entry<String, String> script : scripts.entrySet()) {
+            List<Statement> tree = Measurement.parse(script.getValue());
+            int globalSlots = Resolver.resolve(tree);
+            FlatAst flat = FlatAst.from(Measurement.parse(script.getValue()));
+            Bytecode bytecode = BytecodeCompiler.compile(Measurement.parse(script.getValue()));
+            Runnable jvm = JvmCompiler.compile(Measurement.parse(script.getValue()));
+
+            List<Statement> specialized = Measurement.parse(script.getValue());
+            double treeTime = measure(() -> new SpartieInterpreter().runResolved(tree, globalSlots));
+            double specializeTime = measure(() -> new SpecializingInterpreter().run(specialized));
+            double flatTime = measure(() -> new FlatAstInterpreter().run(flat));
+            double vmTime = measure(() -> new SpartieVM().run(bytecode));
+            // A script outside the JVM backend's subset runs on the tree walker
+            double jvmTime = jvm != null ? measure(jvm) : treeTime;
+            System.out.printf("%-20s %10.1f %10.1f %10.1f %10.1f %10s %8.1fx %7.1fx %7.1fx%n", script.getKey(), treeTime,
+                    specializeTime, flatTime, vmTime, jvm != null ? String.format("%.1f", jvmTime) : "fallback",
+                    treeTime / specializeTime, treeTime / vmTime, treeTime / jvmTime);
+        }
+    }
+
+    // Average milliseconds per run
+    private static double measure(Runnable run) {
+        return Measurement.of(run, WARMUP_ITERATIONS, WARMUP_NANOS, MEASURED_ITERATIONS).meanMillis();
+    }
+}
@@ -0,0 +1,140 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.List;
+
+// Variable lookups in Environment, keyed by name in a HashMap per scope, against SymbolEnvironment,
+// keyed by symbol id, which the Environment walker now uses. "deep nesting" reads variables from
+// every level of a chain of nested scopes, most from far out; "many globals" reads every variable
+// of one large scope; "small scopes" reads from short chains of scopes of one or two variables,
+// as loop bodies make. A script that nests blocks deeply is also timed on the Environment walker.
+//
+// Usage: java EnvironmentBenchmark
+public class EnvironmentBenchmark {
+    private static final int DEPTH = 32;
+    private static final int GLOBALS = 1000;
+    private static final int LOOKUPS = 10_000_000;
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 5;
+
+    // Consumes the lookups' results so they cannot be dropped
+    private static long sink;
+
+    private static final String SCRIPT = """
+            var total = 0;
+            var step = 1;
+            var i = 0;
+            while (i < 100000) {
+                var a = i;
+                {
+                    var b = a;
+                    {
+                        var c = b;
+                        {
+                            var d = c;
+                            {
+                                var e = d;
+                                total = total + step + a + e;
+                            }
+                        }
+                    }
+                }
+                i = i + step;
+            }
+            print total;
+            """;
+
+    public static void main(String[] args) {
+        System.out.printf("%-14s %14s %14s%n", "Lookups", "HashMap ns/op", "symbol ns/op");
+
+        // Two variables per level, looked up from the innermost scope
+        String[] nestedNames = names("nested", DEPTH * 2);
+        int[] nestedSymbols = symbols(nestedNames);
+        Environment nested = new Environment();
+        SymbolEnvironment nestedById = new SymbolEnvironment();
+        for (int level = 0; level < DEPTH; level++) {
+            if (level > 0) {
+                nested = new Environment(nested);
+                nestedById = new SymbolEnvironment(nestedById);
+            }
+            for (int i = level * 2; i < level * 2 + 2; i++) {
+                nested.define(nestedNames[i], (double) i);
+                nestedById.define(nestedSymbols[i], (double) i);
+            }
+        }
+        report("deep nesting", lookups(nested, nestedNames), lookups(nestedById, nestedSymbols));
+
+        String[] globalNames = names("global", GLOBALS);
+        int[] globalSymbols = symbols(globalNames);
+        Environment globals = new Environment();
+        SymbolEnvironment globalsById = new SymbolEnvironment();
+        for (int i = 0; i < GLOBALS; i++) {
+            globals.define(globalNames[i], (double) i);
+            globalsById.define(globalSymbols[i], (double) i);
+        }
+        report("many globals", lookups(globals, globalNames), lookups(globalsById, globalSymbols));
+
+        String[] smallNames = names("small", 4);
+        int[] smallSymbols = symbols(smallNames);
+        Environment small = new Environment();
+        SymbolEnvironment smallById = new SymbolEnvironment();
+        for (int i = 0; i < 4; i++) {
+            small = new Environment(small);
+            smallById = new SymbolEnvironment(smallById);
+            small.define(smallNames[i], (double) i);
+            smallById.define(smallSymbols[i], (double) i);
+        }
+        report("small scopes", lookups(small, smallNames), lookups(smallById, smallSymbols));
+
+        List<Statement> statements = Measurement.parse(SCRIPT);
+        Measurement script = Measurement.of(() -> new SpartieInterpreter().run(statements), WARMUP_RUNS,
+                MEASURED_RUNS);
+        System.out.printf("%nNested blocks script on the Environment walker: %.1f ms%n", script.bestMillis());
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static Runnable lookups(Environment environment, String[] names) {
+        return () -> {
+            long total = 0;
+            for (int i = 0; i < LOOKUPS; i++) {
+                total += ((Double) environment.get(names[i % names.length])).longValue();
+            }
+            sink += total;
+        };
+    }
+
+    private static Runnable lookups(SymbolEnvironment environment, int[] symbols) {
+        return () -> {
+            long total = 0;
+            for (int i = 0; i < LOOKUPS; i++) {
+                total += ((Double) environment.get(symbols[i % symbols.length])).longValue();
+            }
+            sink += total;
+        };
+    }
+
+    private static void report(String name, Runnable byName, Runnable bySymbol) {
+        System.out.printf("%-14s %14.1f %14.1f%n", name,
+                Measurement.of(byName, WARMUP_RUNS, MEASURED_RUNS).bestNanos / (double) LOOKUPS,
+                Measurement.of(bySymbol, WARMUP_RUNS, MEASURED_RUNS).bestNanos / (double) LOOKUPS);
+    }
+
+    private static String[] names(String prefix, int count) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = prefix + i;
+        }
+        return names;
+    }
+
+    private static int[] symbols(String[] names) {
+        int[] symbols = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            symbols[i] = SymbolEnvironment.symbol(names[i]);
+        }
+        return symbols;
+    }
+}
@@ -0,0 +1,68 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.List;
+
+// Retained heap per node of the parsed object tree against a FlatAst, and interpretation time of
+// SpartieInterpreter against FlatAstInterpreter on a loop-heavy program.
+//
+// Usage: java FlatAstBenchmark
+// Run with a fixed heap (-Xms/-Xmx) for stable numbers.
+public class FlatAstBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+
+    private static final String LOOP = """
+            var i = 0;
+            var total = 0;
+            var label = "";
+            while (i < 200000) {
+                var step = i * 3 / 2;
+                if (step > 1000 & !(i == 7)) {
+                    total = total + step / 1000;
+                } else {
+                    total = total + 1;
+                }
+                i = i + 1;
+            }
+            label = "total " + total;
+            """;
+
+    public static void main(String[] args) {
+        String source = ParserBenchmark.generate(4 * 1024 * 1024);
+
+        // Parse from a streaming scanner so the only Tokens left alive are the ones the tree keeps
+        long baseline = usedHeap();
+        SpartieTableScanner scanner = new SpartieTableScanner(source);
+        List<Statement> statements = new SpartieParser(new LookaheadTokenStream(scanner::nextToken), true).parse();
+        scanner = null;
+        long treeBytes = usedHeap() - baseline;
+
+        FlatAst ast = FlatAst.from(statements);
+        statements = null;
+        long flatBytes = usedHeap() - baseline;
+
+        System.out.printf("Nodes: %d, constants: %d%n", ast.size(), ast.constantCount());
+        System.out.printf("Object tree   %6.1f bytes/node%n", treeBytes / (double) ast.size());
+        System.out.printf("FlatAst       %6.1f bytes/node%n", flatBytes / (double) ast.size());
+
+        List<Statement> loop = Measurement.parse(LOOP);
+        FlatAst flatLoop = FlatAst.from(loop);
+        report("SpartieInterpreter", () -> new SpartieInterpreter().run(loop));
+        report("FlatAstInterpreter", () -> new FlatAstInterpreter().run(flatLoop));
+    }
+
+    private static void report(String name, Runnable run) {
+        Measurement measurement = Measurement.of(run, WARMUP_ITERATIONS, MEASURED_ITERATIONS);
+        System.out.printf("%-20s %8.1f ms%n", name, measurement.meanMillis());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,103 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Heap allocated and run time of for loops on the tree walker, run as the native ForStatement and
+// as the block and while loop the parser used to desugar them into. Both the Environment walker
+// (SpartieInterpreter.run) and the resolved walker (runResolved) are measured. Allocation is read
+// from the JVM's per thread counter, so it includes everything: boxed numbers, scopes and frames.
+//
+// Usage: java ForLoopBenchmark
+public class ForLoopBenchmark {
+    private static final int ITERATIONS = 1_000_000;
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 5;
+
+    private static final Map<String, String> SCRIPTS = new LinkedHashMap<>();
+    static {
+        SCRIPTS.put("empty body", "for (var i = 0; i < " + ITERATIONS + "; i = i + 1) {}\n");
+        SCRIPTS.put("sum", """
+                var sum = 0;
+                for (var i = 0; i < %d; i = i + 1) {
+                    sum = sum + i;
+                }
+                print sum;
+                """.formatted(ITERATIONS));
+        SCRIPTS.put("body declares", """
+                var sum = 0;
+                for (var i = 0; i < %d; i = i + 1) {
+                    var half = i / 2;
+                    sum = sum + half;
+                }
+                print sum;
+                """.formatted(ITERATIONS));
+        SCRIPTS.put("nested", """
+                var sum = 0;
+                for (var i = 0; i < 1000; i = i + 1) {
+                    for (var j = 0; j < %d; j = j + 1) {
+                        sum = sum + 1;
+                    }
+                }
+                print sum;
+                """.formatted(ITERATIONS / 1000));
+    }
+
+    public static void main(String[] args) {
+        System.out.printf("%-16s %-9s %14s %14s %10s %10s%n", "Script", "walker", "while B/iter", "for B/iter",
+                "while ms", "for ms");
+        for (Map.Entry<String, String> script : SCRIPTS.entrySet()) {
+            List<Statement> forLoops = Measurement.parse(script.getValue());
+            List<Statement> whileLoops = desugar(Measurement.parse(script.getValue()));
+            report(script.getKey(), "env", () -> new SpartieInterpreter().run(whileLoops),
+                    () -> new SpartieInterpreter().run(forLoops));
+
+            List<Statement> resolvedFor = Measurement.parse(script.getValue());
+            int forSlots = Resolver.resolve(resolvedFor);
+            List<Statement> resolvedWhile = desugar(Measurement.parse(script.getValue()));
+            int whileSlots = Resolver.resolve(resolvedWhile);
+            report(script.getKey(), "resolved",
+                    () -> new SpartieInterpreter().runResolved(resolvedWhile, whileSlots),
+                    () -> new SpartieInterpreter().runResolved(resolvedFor, forSlots));
+        }
+    }
+
+    private static void report(String script, String walker, Runnable whileLoops, Runnable forLoops) {
+        Measurement whileResult = Measurement.of(whileLoops, WARMUP_RUNS, MEASURED_RUNS);
+        Measurement forResult = Measurement.of(forLoops, WARMUP_RUNS, MEASURED_RUNS);
+        System.out.printf("%-16s %-9s %14.1f %14.1f %10.1f %10.1f%n", script, walker,
+                whileResult.meanBytes / ITERATIONS, forResult.meanBytes / ITERATIONS, whileResult.meanMillis(),
+                forResult.meanMillis());
+    }
+
+    // The program with every for loop replaced by its block and while loop
+    private static List<Statement> desugar(List<Statement> statements) {
+        List<Statement> desugared = new ArrayList<>(statements.size());
+        for (Statement statement : statements) {
+            desugared.add(desugar(statement));
+        }
+        return desugared;
+    }
+
+    private static Statement desugar(Statement statement) {
+        switch (statement) {
+            case Statement.ForStatement forStatement -> {
+                forStatement.body = desugar(forStatement.body);
+                return forStatement.desugar();
+            }
+            case Statement.BlockStatement blockStatement -> blockStatement.statements = desugar(blockStatement.statements);
+            case Statement.WhileStatement whileStatement -> whileStatement.body = desugar(whileStatement.body);
+            case Statement.IfStatement ifStatement -> {
+                ifStatement.thenBranch = desugar(ifStatement.thenBranch);
+                ifStatement.elseBranch = desugar(ifStatement.elseBranch);
+            }
+            case null, default -> {
+            }
+        }
+        return statement;
+    }
+}
@@ -0,0 +1,82 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Run time of function calls on the tree walker, resolved (frames of slots, as Main runs it) and
+// unresolved (SymbolEnvironment scopes). fib(30) makes 2.7 million recursive calls; the loop scripts
+// compare a million calls to a small function against the same loop with the body written out,
+// which puts a number on what one call costs. The first run of each script is reported
+// separately, since it includes the JIT warming up.
+//
+// Subtraction adds in Spartie, so the scripts count down by adding negative numbers.
+//
+// Usage: java FunctionBenchmark
+public class FunctionBenchmark {
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 10;
+    private static final int CALLS = 1_000_000;
+
+    private static final Map<String, String> SCRIPTS = new LinkedHashMap<>();
+    static {
+        SCRIPTS.put("fib(30)", """
+                fun fib(n) {
+                    if (n < 2) return n;
+                    return fib(n + -2) + fib(n + -1);
+                }
+                print fib(30);
+                """);
+        SCRIPTS.put("loop, inlined", """
+                var sum = 0;
+                for (var i = 0; i < %d; i = i + 1) {
+                    sum = sum + i * 2;
+                }
+                print sum;
+                """.formatted(CALLS));
+        SCRIPTS.put("loop, calls", """
+                fun twice(x) {
+                    return x * 2;
+                }
+                var sum = 0;
+                for (var i = 0; i < %d; i = i + 1) {
+                    sum = sum + twice(i);
+                }
+                print sum;
+                """.formatted(CALLS));
+        SCRIPTS.put("loop, closure", """
+                fun scaler(factor) {
+                    fun scale(x) {
+                        return x * factor;
+                    }
+                    return scale;
+                }
+                var twice = scaler(2);
+                var sum = 0;
+                for (var i = 0; i < %d; i = i + 1) {
+                    sum = sum + twice(i);
+                }
+                print sum;
+                """.formatted(CALLS));
+    }
+
+    public static void main(String[] args) {
+        System.out.printf("%-16s %-9s %10s %10s%n", "Script", "walker", "first ms", "avg ms");
+        for (Map.Entry<String, String> script : SCRIPTS.entrySet()) {
+            List<Statement> resolved = Measurement.parse(script.getValue());
+            int globalSlots = Resolver.resolve(resolved);
+            report(script.getKey(), "resolved", () -> new SpartieInterpreter().runResolved(resolved, globalSlots));
+
+            List<Statement> unresolved = Measurement.parse(script.getValue());
+            report(script.getKey(), "env", () -> new SpartieInterpreter().run(unresolved));
+        }
+    }
+
+    private static void report(String script, String walker, Runnable run) {
+        Measurement measurement = Measurement.of(run, WARMUP_RUNS, MEASURED_RUNS);
+        System.out.printf("%-16s %-9s %10.1f %10.1f%n", script, walker, measurement.firstNanos / 1e6,
+                measurement.meanMillis());
+    }
+}
@@ -0,0 +1,42 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.Random;
+
+// Latency of re-lexing after a keystroke: a full rescan against IncrementalScanner.edit(), for
+// documents of growing size.
+//
+// Usage: java IncrementalScanBenchmark
+public class IncrementalScanBenchmark {
+    private static final int EDITS = 2000;
+
+    public static void main(String[] args) {
+        for (int size : new int[] { 64 * 1024, 1024 * 1024, 8 * 1024 * 1024 }) {
+            String source = ScannerBenchmark.generate(size);
+            IncrementalScanner scanner = new IncrementalScanner(source);
+            Random random = new Random(42);
+
+            // Type a space after a random statement and delete it again
+            long incremental = 0;
+            for (int i = 0; i < EDITS; i++) {
+                int offset = source.indexOf(';', random.nextInt(source.length() - 64)) + 1;
+                long start = System.nanoTime();
+                scanner.edit(offset, 0, " ");
+                scanner.edit(offset, 1, "");
+                incremental += System.nanoTime() - start;
+            }
+
+            long full = 0;
+            int rescans = Math.max(3, EDITS / (size / 1024));
+            for (int i = 0; i < rescans; i++) {
+                long start = System.nanoTime();
+                new SpartieTableScanner(source).scanCompact();
+                full += System.nanoTime() - start;
+            }
+
+            System.out.printf("%8d KB: full rescan %9.3f ms, incremental edit %7.3f ms%n", size / 1024,
+                    full / (double) rescans / 1e6, incremental / (EDITS * 2.0) / 1e6);
+        }
+    }
+}
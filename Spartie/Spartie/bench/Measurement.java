@@ -0,0 +1,77 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+// Time and heap allocated per run of something run repeatedly on this thread, after warming it up.
+// System.out is discarded while it runs, so a script's prints cost no more than they would
+// going nowhere. Allocation is read from the JVM's per thread counter, so it includes everything
+// the run allocates. Shared by the benchmarks in this directory.
+public class Measurement {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // The first warmup run, before the JIT has compiled anything
+    final long firstNanos;
+    final long bestNanos;
+    final double meanNanos;
+    final double meanBytes;
+
+    private Measurement(long firstNanos, long bestNanos, double meanNanos, double meanBytes) {
+        this.firstNanos = firstNanos;
+        this.bestNanos = bestNanos;
+        this.meanNanos = meanNanos;
+        this.meanBytes = meanBytes;
+    }
+
+    static Measurement of(Runnable run, int warmupRuns, int measuredRuns) {
+        return of(run, warmupRuns, 0, measuredRuns);
+    }
+
+    // Warms up for at least warmupRuns runs and warmupNanos, then measures measuredRuns runs
+    static Measurement of(Runnable run, int warmupRuns, long warmupNanos, int measuredRuns) {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            long warmupStart = System.nanoTime();
+            run.run();
+            long firstNanos = System.nanoTime() - warmupStart;
+            for (int i = 1; i < warmupRuns || System.nanoTime() - warmupStart < warmupNanos; i++) {
+                run.run();
+            }
+
+            long best = Long.MAX_VALUE;
+            long nanos = 0;
+            long bytes = 0;
+            for (int i = 0; i < measuredRuns; i++) {
+                long startBytes = THREADS.getCurrentThreadAllocatedBytes();
+                long start = System.nanoTime();
+                run.run();
+                long elapsed = System.nanoTime() - start;
+                bytes += THREADS.getCurrentThreadAllocatedBytes() - startBytes;
+                nanos += elapsed;
+                best = Math.min(best, elapsed);
+            }
+            return new Measurement(firstNanos, best, nanos / (double) measuredRuns, bytes / (double) measuredRuns);
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    double meanMillis() {
+        return meanNanos / 1e6;
+    }
+
+    double bestMillis() {
+        return bestNanos / 1e6;
+    }
+
+    // A script scanned up front and parsed
+    static List<Statement> parse(String source) {
+        return new SpartieParser(new SpartieTableScanner(source).scan()).parse();
+    }
+}
@@ -0,0 +1,76 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+// Cost per call of turning a number into text, the JDK way and through NumberFormatter, laid out
+// like a JMH run: warmup iterations, then measured iterations reported as the mean time and heap
+// allocated per operation. Each operation formats the next of a fixed set of values, a mix of
+// whole numbers, cents and longer fractions, and its length is consumed so the work cannot be
+// dropped. A logging script run on the tree walker shows the effect on a whole program.
+//
+// Usage: java NumberFormatBenchmark
+public class NumberFormatBenchmark {
+    private static final int VALUES = 1024;
+    private static final int OPERATIONS = 1_000_000;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+
+    private static final String SCRIPT = """
+            var i = 0;
+            var line = "";
+            while (i < 200000) {
+                line = "item " + i + " costs " + i / 7 + " total " + i * 1.25;
+                print i;
+                i = i + 1;
+            }
+            print line;
+            """;
+
+    private static final double[] values = new double[VALUES];
+    private static final char[] buffer = new char[NumberFormatter.MAX_LENGTH];
+    private static long sink;
+
+    public static void main(String[] args) {
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = switch (i % 4) {
+                case 0 -> i;
+                case 1 -> -i / 100.0;
+                case 2 -> i / 7.0;
+                default -> i * 1234.5678;
+            };
+        }
+        System.out.printf("%-34s %10s %10s%n", "Benchmark", "ns/op", "B/op");
+        report("String.format(\"%.2f\")", i -> String.format("%.2f", values[i]).length());
+        report("NumberFormatter.fixed2(String)", i -> NumberFormatter.fixed2(values[i]).length());
+        report("NumberFormatter.fixed2(char[])", i -> NumberFormatter.fixed2(values[i], buffer));
+        report("Double.toString", i -> Double.toString(values[i]).length());
+        report("NumberFormatter.toString(String)", i -> NumberFormatter.toString(values[i]).length());
+        report("NumberFormatter.toString(char[])", i -> NumberFormatter.toString(values[i], buffer));
+
+        List<Statement> statements = Measurement.parse(SCRIPT);
+        int globalSlots = Resolver.resolve(statements);
+        Measurement script = Measurement.of(() -> new SpartieInterpreter().runResolved(statements, globalSlots),
+                WARMUP_ITERATIONS, MEASURED_ITERATIONS);
+        System.out.printf("%nLogging script on the tree walker: %.1f ms%n", script.bestMillis());
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static void report(String name, IntUnaryOperator operation) {
+        Measurement measurement = Measurement.of(() -> iteration(operation), WARMUP_ITERATIONS, MEASURED_ITERATIONS);
+        System.out.printf("%-34s %10.1f %10.1f%n", name, measurement.meanNanos / OPERATIONS,
+                measurement.meanBytes / OPERATIONS);
+    }
+
+    private static void iteration(IntUnaryOperator operation) {
+        long total = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            total += operation.applyAsInt(i & (VALUES - 1));
+        }
+        sink += total;
+    }
+}
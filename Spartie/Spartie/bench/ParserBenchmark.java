@@ -0,0 +1,74 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.List;
+import java.util.Random;
+
+// Parse time of the recursive descent expression parser against the precedence climbing one on
+// expression-dense, machine-generated arithmetic. Both parse the same pre-scanned tokens.
+//
+// Usage: java ParserBenchmark
+public class ParserBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+
+    public static void main(String[] args) {
+        String source = generate(4 * 1024 * 1024);
+        List<Token> tokens = new SpartieTableScanner(source).scan();
+
+        String recursiveDescent = AstPrinter.print(parse(tokens, false));
+        String precedenceClimbing = AstPrinter.print(parse(tokens, true));
+        if (!recursiveDescent.equals(precedenceClimbing)) {
+            throw new IllegalStateException("The parsers built different trees");
+        }
+
+        System.out.printf("Tokens: %d%n", tokens.size());
+        report("Recursive descent", tokens, false);
+        report("Precedence climbing", tokens, true);
+    }
+
+    private static List<Statement> parse(List<Token> tokens, boolean precedenceClimbing) {
+        return new SpartieParser(new ListTokenStream(tokens), precedenceClimbing).parse();
+    }
+
+    private static void report(String name, List<Token> tokens, boolean precedenceClimbing) {
+        double milliseconds = Measurement.of(() -> parse(tokens, precedenceClimbing), WARMUP_ITERATIONS,
+                MEASURED_ITERATIONS).meanMillis();
+        System.out.printf("%-20s %8.1f ms %8.1f Mtokens/s%n", name, milliseconds,
+                tokens.size() / milliseconds / 1e3);
+    }
+
+    private static final String[] OPERATORS = { "+", "-", "*", "/", "<", "<=", ">", ">=", "==", "!=", "&", "|" };
+    private static final String[] OPERANDS = { "a", "b", "total", "12", "3.5", "\"text\"", "true", "null" };
+
+    static String generate(int size) {
+        Random random = new Random(1);
+        StringBuilder builder = new StringBuilder(size + 256);
+        while (builder.length() < size) {
+            builder.append("x = ");
+            expression(random, builder, 4);
+            builder.append(";\n");
+        }
+        return builder.toString();
+    }
+
+    private static void expression(Random random, StringBuilder builder, int depth) {
+        int terms = 2 + random.nextInt(3);
+        for (int i = 0; i < terms; i++) {
+            if (i > 0) {
+                builder.append(' ').append(OPERATORS[random.nextInt(OPERATORS.length)]).append(' ');
+            }
+            if (random.nextInt(4) == 0) {
+                builder.append(random.nextBoolean() ? "-" : "!");
+            }
+            if (depth > 0 && random.nextInt(3) == 0) {
+                builder.append('(');
+                expression(random, builder, depth - 1);
+                builder.append(')');
+            } else {
+                builder.append(OPERANDS[random.nextInt(OPERANDS.length)]);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.List;
+
+// Time to build a long string one line at a time with s = s + line. The tree walker concatenates
+// into a Rope, which appends in place, so doubling the length should roughly double the time; the
+// closure engine still makes a new String each time, copying everything built so far, so its time
+// roughly quadruples.
+//
+// Usage: java RopeBenchmark
+public class RopeBenchmark {
+    private static final int LINE_LENGTH = 100;
+    private static final int[] MEGABYTES = { 1, 2, 4 };
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 3;
+
+    public static void main(String[] args) {
+        String line = "x".repeat(LINE_LENGTH);
+        System.out.printf("%-6s %10s %12s %12s%n", "MB", "lines", "rope ms", "String ms");
+        for (int megabytes : MEGABYTES) {
+            int lines = megabytes * 1024 * 1024 / LINE_LENGTH;
+            String source = """
+                    var s = "";
+                    var i = 0;
+                    while (i < %d) {
+                        s = s + "%s";
+                        i = i + 1;
+                    }
+                    print s == "";
+                    """.formatted(lines, line);
+            List<Statement> resolved = Measurement.parse(source);
+            int globalSlots = Resolver.resolve(resolved);
+            double rope = Measurement.of(() -> new SpartieInterpreter().runResolved(resolved, globalSlots), WARMUP_RUNS,
+                    MEASURED_RUNS).bestMillis();
+            Runnable closure = ClosureCompiler.compile(Measurement.parse(source));
+            double strings = Measurement.of(closure, WARMUP_RUNS, MEASURED_RUNS).bestMillis();
+            System.out.printf("%-6d %10d %12.1f %12.1f%n", megabytes, lines, rope, strings);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+
+// Scanner throughput in MB/s: SpartieScanner against SpartieTableScanner and
+// SpartieParallelScanner.
+//
+// Usage: java ScannerBenchmark [file]
+// Without a file a multi-megabyte generated script and a number-heavy table are scanned, with a
+// file the memory-mapped source from SourceLoader is measured as well.
+public class ScannerBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            String source = Files.readString(Paths.get(args[0]));
+            run(args[0], source);
+
+            CharSequence mapped = SourceLoader.load(Paths.get(args[0]), StandardCharsets.UTF_8);
+            report("SpartieTableScanner (mapped)", source.length() / (1024.0 * 1024.0),
+                    () -> new SpartieTableScanner(mapped).scan());
+        } else {
+            run("Generated script", generate(8 * 1024 * 1024));
+            run("Generated numeric table", generateNumeric(8 * 1024 * 1024));
+        }
+    }
+
+    private static void run(String name, String source) {
+        double megabytes = source.length() / (1024.0 * 1024.0);
+
+        verify(new SpartieScanner(source).scan(), new SpartieTableScanner(source).scan());
+        verify(new SpartieScanner(source).scan(), new SpartieParallelScanner(source).scan());
+
+        System.out.printf("%s: %.2f MB%n", name, megabytes);
+        report("SpartieScanner", megabytes, () -> new SpartieScanner(source).scan());
+        report("SpartieTableScanner", megabytes, () -> new SpartieTableScanner(source).scan());
+        report("SpartieParallelScanner", megabytes, () -> new SpartieParallelScanner(source).scan());
+    }
+
+    private static void report(String name, double megabytes, Runnable scan) {
+        Measurement measurement = Measurement.of(scan, WARMUP_ITERATIONS, MEASURED_ITERATIONS);
+        System.out.printf("%-30s %8.1f MB/s (best %8.1f MB/s)%n", name,
+                megabytes / (measurement.meanNanos / 1e9), megabytes / (measurement.bestNanos / 1e9));
+    }
+
+    private static void verify(List<Token> expected, List<Token> actual) {
+        if (expected.size() != actual.size()) {
+            throw new IllegalStateException("Token count differs: " + expected.size() + " vs " + actual.size());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            Token a = expected.get(i);
+            Token b = actual.get(i);
+            if (a.type != b.type || a.line != b.line || !Objects.equals(a.text, b.text)
+                    || !Objects.equals(a.literal, b.literal)) {
+                throw new IllegalStateException("Token " + i + " differs: " + a + " vs " + b);
+            }
+        }
+    }
+
+    // Something that resembles our machine-generated scripts
+    static String generate(int size) {
+        StringBuilder builder = new StringBuilder(size + 256);
+        int n = 0;
+        while (builder.length() < size) {
+            builder.append("// generated block ").append(n).append('\n');
+            builder.append("var value = ").append(n).append(".25;\n");
+            builder.append("var label = \"entry number\";\n");
+            builder.append("for (var i = 0; i < 10; i = i + 1) {\n");
+            builder.append("\tif (value >= i * 2 & label != \"skip\" | !false) {\n");
+            builder.append("\t\tvalue = (value + i) / 3 - 1;\n");
+            builder.append("\t} else {\n");
+            builder.append("\t\tprint label + value;\n");
+            builder.append("\t}\n");
+            builder.append("}\n");
+            n++;
+        }
+        return builder.toString();
+    }
+
+    // Lookup tables and test vectors: mostly number literals
+    static String generateNumeric(int size) {
+        StringBuilder builder = new StringBuilder(size + 256);
+        int n = 0;
+        while (builder.length() < size) {
+            builder.append("var entry = ").append(n % 1000).append(" + ").append(n % 97).append(".5 * ")
+                    .append(1024 + n % 7).append(" - 0.125 / ").append(n).append(".0625;\n");
+            n++;
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,132 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+// Directory of parsed programs keyed by the SHA-256 of the source. Every entry starts with a
+// version stamp made of AstSerializer.FORMAT_VERSION and a digest of the classes that load, scan,
+// parse and serialize, so a new format or a rebuilt front end turns old entries into misses that
+// get overwritten.
+public class AstCache {
+    private static final int MAGIC = 0x53505441; // SPTA
+
+    // Classes whose changes invalidate cached trees, each with the classes nested in it
+    private static final Class<?>[] STAMPED_CLASSES = {
+            AstSerializer.class, Expression.class, Statement.class, Token.class, TokenType.class,
+            SourceLoader.class, SpartieTableScanner.class, SpartieParallelScanner.class, Keywords.class,
+            NumberLiterals.class, SymbolTable.class, TokenStream.class, LookaheadTokenStream.class,
+            ListTokenStream.class, SpartieParser.class
+    };
+
+    private static String stamp;
+
+    private final Path directory;
+
+    public AstCache(Path directory) {
+        this.directory = directory;
+    }
+
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("java.io.tmpdir"), "spartie-cache");
+    }
+
+    // Cache key for a source file read with the given charset
+    public static String key(Path source, Charset charset) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update(charset.name().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            digest.update(bytes);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // The cached program for key, or null if there is none or it was written by another version
+    public List<Statement> load(String key) {
+        Path entry = directory.resolve(key + ".ast");
+        if (!Files.isRegularFile(entry)) {
+            return null;
+        }
+
+        // Read from memory, which lets the reader check every count against the bytes left
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(entry)))) {
+            if (in.readInt() != MAGIC || in.readInt() != AstSerializer.FORMAT_VERSION
+                    || !in.readUTF().equals(stamp())) {
+                return null;
+            }
+            return AstSerializer.read(in);
+        } catch (IOException | RuntimeException | StackOverflowError e) {
+            // A damaged entry is a miss, it is replaced on the next store
+            return null;
+        }
+    }
+
+    // Stores a program under key. Failing to write the cache never fails the run.
+    public void store(String key, List<Statement> statements) {
+        try {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(AstSerializer.FORMAT_VERSION);
+                out.writeUTF(stamp());
+                AstSerializer.write(statements, out);
+            } catch (IOException e) {
+                Files.deleteIfExists(temporary);
+                throw e;
+            }
+            // Readers see either the old entry or the complete new one
+            Files.move(temporary, directory.resolve(key + ".ast"), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.printf("Unable to write AST cache entry %s: %s\n", key, e.getMessage());
+        }
+    }
+
+    private static synchronized String stamp() throws IOException {
+        if (stamp == null) {
+            MessageDigest digest = sha256();
+            for (Class<?> stamped : STAMPED_CLASSES) {
+                // The nest host comes first, then the nested classes (Expression$BinaryExpression, ...)
+                for (Class<?> member : stamped.getNestMembers()) {
+                    String name = member.getName();
+                    try (InputStream in = AstCache.class.getResourceAsStream("/" + name + ".class")) {
+                        if (in == null) {
+                            throw new IOException("Class file for " + name + " not found");
+                        }
+                        digest.update(in.readAllBytes());
+                    }
+                }
+            }
+            stamp = HexFormat.of().formatHex(digest.digest());
+        }
+        return stamp;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.List;
+
+// Dumps statements and expressions as parenthesized prefix notation, one statement per line
+public class AstPrinter {
+    public static String print(List<Statement> statements) {
+        StringBuilder builder = new StringBuilder();
+        for (Statement statement : statements) {
+            print(statement, 0, builder);
+        }
+        return builder.toString();
+    }
+
+    public static String print(Expression expression) {
+        StringBuilder builder = new StringBuilder();
+        print(expression, builder);
+        return builder.toString();
+    }
+
+    private static void print(Statement statement, int depth, StringBuilder builder) {
+        builder.append("  ".repeat(depth));
+        switch (statement) {
+            case Statement.PrintStatement printStatement -> {
+                builder.append("(print ");
+                print(printStatement.expression, builder);
+                builder.append(")\n");
+            }
+            case Statement.ExpressionStatement expressionStatement -> {
+                builder.append("(; ");
+                print(expressionStatement.expression, builder);
+                builder.append(")\n");
+            }
+            case Statement.VariableStatement variableStatement -> {
+                builder.append("(var ").append(variableStatement.name.text);
+                if (variableStatement.initializer != null) {
+                    builder.append(' ');
+                    print(variableStatement.initializer, builder);
+                }
+                builder.append(")\n");
+            }
+            case Statement.BlockStatement blockStatement -> {
+                builder.append("(block\n");
+                for (Statement inner : blockStatement.statements) {
+                    print(inner, depth + 1, builder);
+                }
+                builder.append("  ".repeat(depth)).append(")\n");
+            }
+            case Statement.IfStatement ifStatement -> {
+                builder.append("(if ");
+                print(ifStatement.condition, builder);
+                builder.append('\n');
+                print(ifStatement.thenBranch, depth + 1, builder);
+                if (ifStatement.elseBranch != null) {
+                    print(ifStatement.elseBranch, depth + 1, builder);
+                }
+                builder.append("  ".repeat(depth)).append(")\n");
+            }
+            case Statement.WhileStatement whileStatement -> {
+                builder.append("(while ");
+                print(whileStatement.condition, builder);
+                builder.append('\n');
+                print(whileStatement.body, depth + 1, builder);
+                builder.append("  ".repeat(depth)).append(")\n");
+            }
+            case Statement.ForStatement forStatement -> {
+                builder.append("(for\n");
+                if (forStatement.initializer != null) {
+                    print(forStatement.initializer, depth + 1, builder);
+                } else {
+                    builder.append("  ".repeat(depth + 1)).append("(;)\n");
+                }
+                builder.append("  ".repeat(depth + 1));
+                print(forStatement.condition, builder);
+                builder.append('\n').append("  ".repeat(depth + 1));
+                if (forStatement.increment != null) {
+                    print(forStatement.increment, builder);
+                } else {
+                    builder.append("(;)");
+                }
+                builder.append('\n');
+                print(forStatement.body, depth + 1, builder);
+                builder.append("  ".repeat(depth)).append(")\n");
+            }
+            case Statement.FunctionStatement functionStatement -> {
+                builder.append("(fun ").append(functionStatement.name.text).append(" (");
+                for (int i = 0; i < functionStatement.parameters.size(); i++) {
+                    if (i > 0) {
+                        builder.append(' ');
+                    }
+                    builder.append(functionStatement.parameters.get(i).text);
+                }
+                builder.append(")\n");
+                for (Statement inner : functionStatement.body) {
+                    print(inner, depth + 1, builder);
+                }
+                builder.append("  ".repeat(depth)).append(")\n");
+            }
+            case Statement.ReturnStatement returnStatement -> {
+                builder.append("(return");
+                if (returnStatement.value != null) {
+                    builder.append(' ');
+                    print(returnStatement.value, builder);
+                }
+                builder.append(")\n");
+            }
+            case null, default -> builder.append("(unknown)\n");
+        }
+    }
+
+    private static void print(Expression expression, StringBuilder builder) {
+        switch (expression) {
+            case Expression.LogicalExpression logicalExpression ->
+                    operator(logicalExpression.operator.text, builder, logicalExpression.left, logicalExpression.right);
+            case Expression.BinaryExpression binaryExpression ->
+                    operator(binaryExpression.operator.text, builder, binaryExpression.left, binaryExpression.right);
+            case Expression.UnaryExpression unaryExpression ->
+                    operator(unaryExpression.operator.text, builder, unaryExpression.right);
+            case Expression.ParenthesesExpression parenthesesExpression ->
+                    operator("group", builder, parenthesesExpression.expression);
+            case Expression.AssignmentExpression assignmentExpression -> {
+                builder.append("(= ").append(assignmentExpression.name.text).append(' ');
+                print(assignmentExpression.value, builder);
+                builder.append(')');
+            }
+            case Expression.CallExpression callExpression -> {
+                builder.append("(call ");
+                print(callExpression.callee, builder);
+                for (Expression argument : callExpression.arguments) {
+                    builder.append(' ');
+                    print(argument, builder);
+                }
+                builder.append(')');
+            }
+            case Expression.VariableExpression variableExpression -> builder.append(variableExpression.name.text);
+            case Expression.LiteralExpression literalExpression -> {
+                Object value = literalExpression.literalValue;
+                if (value instanceof String) {
+                    builder.append('"').append(value).append('"');
+                } else {
+                    builder.append(value);
+                }
+            }
+            case null, default -> builder.append("(unknown)");
+        }
+    }
+
+    private static void operator(String name, StringBuilder builder, Expression... operands) {
+        builder.append('(').append(name);
+        for (Expression operand : operands) {
+            builder.append(' ');
+            print(operand, builder);
+        }
+        builder.append(')');
+    }
+}
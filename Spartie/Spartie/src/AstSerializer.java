@@ -0,0 +1,396 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compact binary form of a parsed program. Nodes are written depth first behind a one byte tag,
+// and every String (names, token text, string literals) is written once and referred to by index
+// afterwards, so a name used a thousand times costs a few bytes per use.
+public class AstSerializer {
+    // Bump whenever the layout below changes
+    public static final int FORMAT_VERSION = 3;
+
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    // Statement tags
+    private static final byte PRINT = 1;
+    private static final byte EXPRESSION = 2;
+    private static final byte VARIABLE = 3;
+    private static final byte BLOCK = 4;
+    private static final byte IF = 5;
+    private static final byte WHILE = 6;
+    private static final byte FOR = 7;
+    private static final byte FUNCTION = 8;
+    private static final byte RETURN = 9;
+
+    // Expression tags
+    private static final byte ASSIGNMENT = 1;
+    private static final byte LOGICAL = 2;
+    private static final byte BINARY = 3;
+    private static final byte UNARY = 4;
+    private static final byte VARIABLE_REFERENCE = 5;
+    private static final byte LITERAL = 6;
+    private static final byte PARENTHESES = 7;
+    private static final byte CALL = 8;
+
+    // Literal tags
+    private static final byte NULL_VALUE = 0;
+    private static final byte TRUE_VALUE = 1;
+    private static final byte FALSE_VALUE = 2;
+    private static final byte NUMBER_VALUE = 3;
+    private static final byte STRING_VALUE = 4;
+
+    // Marks a missing node or String
+    private static final byte ABSENT = 0;
+
+    public static void write(List<Statement> statements, DataOutputStream out) throws IOException {
+        new Writer(out).statements(statements);
+    }
+
+    // in must read the entry from memory, so that available() is the number of bytes left in it.
+    // Damaged input throws IOException.
+    public static List<Statement> read(DataInputStream in) throws IOException {
+        return new Reader(in).statements();
+    }
+
+    private static class Writer {
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void statements(List<Statement> statements) throws IOException {
+            out.writeInt(statements.size());
+            for (Statement statement : statements) {
+                statement(statement);
+            }
+        }
+
+        void statement(Statement statement) throws IOException {
+            switch (statement) {
+                case null -> out.writeByte(ABSENT);
+                case Statement.PrintStatement printStatement -> {
+                    out.writeByte(PRINT);
+                    expression(printStatement.expression);
+                }
+                case Statement.ExpressionStatement expressionStatement -> {
+                    out.writeByte(EXPRESSION);
+                    expression(expressionStatement.expression);
+                }
+                case Statement.VariableStatement variableStatement -> {
+                    out.writeByte(VARIABLE);
+                    token(variableStatement.name);
+                    expression(variableStatement.initializer);
+                }
+                case Statement.BlockStatement blockStatement -> {
+                    out.writeByte(BLOCK);
+                    statements(blockStatement.statements);
+                }
+                case Statement.IfStatement ifStatement -> {
+                    out.writeByte(IF);
+                    expression(ifStatement.condition);
+                    statement(ifStatement.thenBranch);
+                    statement(ifStatement.elseBranch);
+                }
+                case Statement.WhileStatement whileStatement -> {
+                    out.writeByte(WHILE);
+                    expression(whileStatement.condition);
+                    statement(whileStatement.body);
+                }
+                case Statement.ForStatement forStatement -> {
+                    out.writeByte(FOR);
+                    statement(forStatement.initializer);
+                    expression(forStatement.condition);
+                    expression(forStatement.increment);
+                    statement(forStatement.body);
+                }
+                case Statement.FunctionStatement functionStatement -> {
+                    out.writeByte(FUNCTION);
+                    token(functionStatement.name);
+                    out.writeInt(functionStatement.parameters.size());
+                    for (Token parameter : functionStatement.parameters) {
+                        token(parameter);
+                    }
+                    statements(functionStatement.body);
+                }
+                case Statement.ReturnStatement returnStatement -> {
+                    out.writeByte(RETURN);
+                    token(returnStatement.keyword);
+                    expression(returnStatement.value);
+                }
+                default -> throw new IOException("Cannot serialize " + statement.getClass().getName());
+            }
+        }
+
+        void expression(Expression expression) throws IOException {
+            switch (expression) {
+                case null -> out.writeByte(ABSENT);
+                case Expression.AssignmentExpression assignmentExpression -> {
+                    out.writeByte(ASSIGNMENT);
+                    token(assignmentExpression.name);
+                    expression(assignmentExpression.value);
+                }
+                case Expression.LogicalExpression logicalExpression -> {
+                    out.writeByte(LOGICAL);
+                    expression(logicalExpression.left);
+                    token(logicalExpression.operator);
+                    expression(logicalExpression.right);
+                }
+                case Expression.BinaryExpression binaryExpression -> {
+                    out.writeByte(BINARY);
+                    expression(binaryExpression.left);
+                    token(binaryExpression.operator);
+                    expression(binaryExpression.right);
+                }
+                case Expression.UnaryExpression unaryExpression -> {
+                    out.writeByte(UNARY);
+                    token(unaryExpression.operator);
+                    expression(unaryExpression.right);
+                }
+                case Expression.VariableExpression variableExpression -> {
+                    out.writeByte(VARIABLE_REFERENCE);
+                    token(variableExpression.name);
+                }
+                case Expression.LiteralExpression literalExpression -> {
+                    out.writeByte(LITERAL);
+                    value(literalExpression.literalValue);
+                }
+                case Expression.ParenthesesExpression parenthesesExpression -> {
+                    out.writeByte(PARENTHESES);
+                    expression(parenthesesExpression.expression);
+                }
+                case Expression.CallExpression callExpression -> {
+                    out.writeByte(CALL);
+                    expression(callExpression.callee);
+                    token(callExpression.paren);
+                    out.writeInt(callExpression.arguments.size());
+                    for (Expression argument : callExpression.arguments) {
+                        expression(argument);
+                    }
+                }
+                default -> throw new IOException("Cannot serialize " + expression.getClass().getName());
+            }
+        }
+
+        void token(Token token) throws IOException {
+            out.writeByte(token.type.ordinal());
+            out.writeInt(token.line);
+            string(token.text);
+            value(token.literal);
+        }
+
+        void value(Object value) throws IOException {
+            switch (value) {
+                case null -> out.writeByte(NULL_VALUE);
+                case Boolean bool -> out.writeByte(bool ? TRUE_VALUE : FALSE_VALUE);
+                case Double number -> {
+                    out.writeByte(NUMBER_VALUE);
+                    out.writeDouble(number);
+                }
+                case String string -> {
+                    out.writeByte(STRING_VALUE);
+                    string(string);
+                }
+                default -> throw new IOException("Cannot serialize literal " + value.getClass().getName());
+            }
+        }
+
+        // 0 for null, index + 1 for a String written before, and -1 - length followed by the UTF-8
+        // bytes for a new one
+        void string(String string) throws IOException {
+            if (string == null) {
+                out.writeInt(ABSENT);
+                return;
+            }
+            Integer index = strings.get(string);
+            if (index != null) {
+                out.writeInt(index + 1);
+                return;
+            }
+            strings.put(string, strings.size());
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(-1 - bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static class Reader {
+        private final DataInputStream in;
+        private final List<String> strings = new ArrayList<>();
+
+        Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        List<Statement> statements() throws IOException {
+            int count = count();
+            List<Statement> statements = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                statements.add(statement());
+            }
+            return statements;
+        }
+
+        // A count of nodes, each of which takes at least one byte
+        int count() throws IOException {
+            return length(in.readInt());
+        }
+
+        // A count or length must fit in what is left of the entry, so a damaged one cannot make
+        // the reader allocate more than that
+        int length(int length) throws IOException {
+            if (length < 0 || length > in.available()) {
+                throw new IOException("Length " + length + " does not fit in the entry");
+            }
+            return length;
+        }
+
+        Statement statement() throws IOException {
+            byte tag = in.readByte();
+            switch (tag) {
+                case ABSENT:
+                    return null;
+                case PRINT:
+                    return new Statement.PrintStatement(expression());
+                case EXPRESSION:
+                    return new Statement.ExpressionStatement(expression());
+                case VARIABLE: {
+                    Token name = token();
+                    return new Statement.VariableStatement(name, expression());
+                }
+                case BLOCK:
+                    return new Statement.BlockStatement(statements());
+                case IF: {
+                    Expression condition = expression();
+                    Statement thenBranch = statement();
+                    return new Statement.IfStatement(condition, thenBranch, statement());
+                }
+                case WHILE: {
+                    Expression condition = expression();
+                    return new Statement.WhileStatement(condition, statement());
+                }
+                case FOR: {
+                    Statement initializer = statement();
+                    Expression condition = expression();
+                    Expression increment = expression();
+                    return new Statement.ForStatement(initializer, condition, increment, statement());
+                }
+                case FUNCTION: {
+                    Token name = token();
+                    int count = count();
+                    List<Token> parameters = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        parameters.add(token());
+                    }
+                    return new Statement.FunctionStatement(name, parameters, statements());
+                }
+                case RETURN: {
+                    Token keyword = token();
+                    return new Statement.ReturnStatement(keyword, expression());
+                }
+                default:
+                    throw new IOException("Unknown statement tag " + tag);
+            }
+        }
+
+        Expression expression() throws IOException {
+            byte tag = in.readByte();
+            switch (tag) {
+                case ABSENT:
+                    return null;
+                case ASSIGNMENT: {
+                    Token name = token();
+                    return new Expression.AssignmentExpression(name, expression());
+                }
+                case LOGICAL: {
+                    Expression left = expression();
+                    Token operator = token();
+                    return new Expression.LogicalExpression(left, operator, expression());
+                }
+                case BINARY: {
+                    Expression left = expression();
+                    Token operator = token();
+                    return new Expression.BinaryExpression(left, operator, expression());
+                }
+                case UNARY: {
+                    Token operator = token();
+                    return new Expression.UnaryExpression(operator, expression());
+                }
+                case VARIABLE_REFERENCE:
+                    return new Expression.VariableExpression(token());
+                case LITERAL:
+                    return new Expression.LiteralExpression(value());
+                case PARENTHESES:
+                    return new Expression.ParenthesesExpression(expression());
+                case CALL: {
+                    Expression callee = expression();
+                    Token paren = token();
+                    int count = count();
+                    List<Expression> arguments = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        arguments.add(expression());
+                    }
+                    return new Expression.CallExpression(callee, paren, arguments);
+                }
+                default:
+                    throw new IOException("Unknown expression tag " + tag);
+            }
+        }
+
+        Token token() throws IOException {
+            int type = in.readByte();
+            if (type < 0 || type >= TOKEN_TYPES.length) {
+                throw new IOException("Unknown token type " + type);
+            }
+            int line = in.readInt();
+            String text = string();
+            return new Token(TOKEN_TYPES[type], text, line, value());
+        }
+
+        Object value() throws IOException {
+            byte tag = in.readByte();
+            switch (tag) {
+                case NULL_VALUE:
+                    return null;
+                case TRUE_VALUE:
+                    return true;
+                case FALSE_VALUE:
+                    return false;
+                case NUMBER_VALUE:
+                    return in.readDouble();
+                case STRING_VALUE:
+                    return string();
+                default:
+                    throw new IOException("Unknown literal tag " + tag);
+            }
+        }
+
+        String string() throws IOException {
+            int reference = in.readInt();
+            if (reference == ABSENT) {
+                return null;
+            }
+            if (reference > 0) {
+                if (reference > strings.size()) {
+                    throw new IOException("Unknown string " + reference);
+                }
+                return strings.get(reference - 1);
+            }
+            byte[] bytes = new byte[length(-1 - reference)];
+            in.readFully(bytes);
+            String string = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(string);
+            return string;
+        }
+    }
+}
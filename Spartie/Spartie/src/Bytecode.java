@@ -0,0 +1,76 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+// A program compiled by BytecodeCompiler for SpartieVM. Instructions are a one byte opcode
+// followed by their operands, big endian: u16 for constant and variable slots, s32 absolute code
+// offsets for jumps. A constant or variable instruction whose slot does not fit in a u16 is
+// prefixed with WIDE and takes a u32 instead. lines holds the source line of every code byte, for
+// error messages.
+//
+// Block variables are flattened into one locals array: without functions at most one instance of
+// a block is live at a time, and the Resolver guarantees a slot is written before it is read.
+public class Bytecode {
+    // Push constants[u16]
+    static final byte CONSTANT = 0;
+    static final byte NULL = 1;
+    static final byte TRUE = 2;
+    static final byte FALSE = 3;
+    static final byte POP = 4;
+
+    // Variables; the SET instructions leave the value on the stack, DEFINE pops it
+    static final byte GET_LOCAL = 5;
+    static final byte SET_LOCAL = 6;
+    static final byte DEFINE_LOCAL = 7;
+    static final byte GET_GLOBAL = 8;
+    static final byte SET_GLOBAL = 9;
+    static final byte DEFINE_GLOBAL = 10;
+
+    // Operators, popping their operands and pushing the result
+    static final byte ADD = 11;
+    static final byte SUBTRACT = 12;
+    static final byte MULTIPLY = 13;
+    static final byte DIVIDE = 14;
+    static final byte EQUIVALENT = 15;
+    static final byte NOT_EQUAL = 16;
+    static final byte LESS_THAN = 17;
+    static final byte LESS_EQUAL = 18;
+    static final byte GREATER_THAN = 19;
+    static final byte GREATER_EQUAL = 20;
+    static final byte NOT = 21;
+    static final byte NEGATE = 22;
+
+    // Control flow to an s32 code offset
+    static final byte JUMP = 23;
+    // Pops the condition
+    static final byte JUMP_IF_FALSE = 24;
+    // Short-circuit operators: jump keeping the left value, or pop it and fall through to the right
+    static final byte JUMP_IF_TRUE_OR_POP = 25;
+    static final byte JUMP_IF_FALSE_OR_POP = 26;
+
+    static final byte PRINT = 27;
+    static final byte RETURN = 28;
+
+    // Followed by a constant or variable opcode, whose operand is then a u32
+    static final byte WIDE = 29;
+
+    final byte[] code;
+    final int[] lines;
+    final Object[] constants;
+    final String[] globalNames;
+    final int localCount;
+    final int maxStack;
+
+    Bytecode(byte[] code, int[] lines, Object[] constants, String[] globalNames, int localCount, int maxStack) {
+        this.code = code;
+        this.lines = lines;
+        this.constants = constants;
+        this.globalNames = globalNames;
+        this.localCount = localCount;
+        this.maxStack = maxStack;
+    }
+
+    public int size() {
+        return code.length;
+    }
+}
@@ -0,0 +1,274 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compiles a parsed program to Bytecode. Variables are resolved first, then every block frame is
+// laid out in one flat locals array: a block's slots start where its enclosing frames end, and
+// sibling blocks reuse the same range.
+public class BytecodeCompiler {
+    private byte[] code = new byte[256];
+    private int[] lines = new int[256];
+    private int size;
+
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndex = new HashMap<>();
+    private String[] globalNames;
+
+    // First local of each frame the Resolver counts depth through, innermost last
+    private final List<Integer> frameBases = new ArrayList<>();
+    private int localTop;
+    private int localCount;
+
+    private int stack;
+    private int maxStack;
+
+    private BytecodeCompiler() {
+    }
+
+    public static Bytecode compile(List<Statement> statements) {
+        BytecodeCompiler compiler = new BytecodeCompiler();
+        compiler.globalNames = new String[Resolver.resolve(statements)];
+        for (Statement statement : statements) {
+            compiler.statement(statement);
+        }
+        compiler.emit(Bytecode.RETURN, 0);
+
+        return new Bytecode(Arrays.copyOf(compiler.code, compiler.size), Arrays.copyOf(compiler.lines, compiler.size),
+                compiler.constants.toArray(), compiler.globalNames, compiler.localCount, compiler.maxStack);
+    }
+
+    private void statement(Statement statement) {
+        switch (statement) {
+            case Statement.PrintStatement printStatement -> {
+                expression(printStatement.expression);
+                emit(Bytecode.PRINT, 0);
+                pop(1);
+            }
+            case Statement.ExpressionStatement expressionStatement -> {
+                expression(expressionStatement.expression);
+                emit(Bytecode.POP, 0);
+                pop(1);
+            }
+            case Statement.VariableStatement variableStatement -> {
+                expression(variableStatement.initializer);
+                if (variableStatement.depth == Resolver.GLOBAL) {
+                    emitSlot(Bytecode.DEFINE_GLOBAL, global(variableStatement.slot, variableStatement.name));
+                } else {
+                    emitSlot(Bytecode.DEFINE_LOCAL, local(0, variableStatement.slot));
+                }
+                pop(1);
+            }
+            case Statement.BlockStatement blockStatement -> {
+                if (blockStatement.slots > 0) {
+                    frameBases.add(localTop);
+                    localTop += blockStatement.slots;
+                    localCount = Math.max(localCount, localTop);
+                }
+                for (Statement inner : blockStatement.statements) {
+                    statement(inner);
+                }
+                if (blockStatement.slots > 0) {
+                    localTop = frameBases.remove(frameBases.size() - 1);
+                }
+            }
+            case Statement.IfStatement ifStatement -> {
+                expression(ifStatement.condition);
+                int elseJump = emitJump(Bytecode.JUMP_IF_FALSE);
+                pop(1);
+                statement(ifStatement.thenBranch);
+                if (ifStatement.elseBranch == null) {
+                    patch(elseJump);
+                } else {
+                    int endJump = emitJump(Bytecode.JUMP);
+                    patch(elseJump);
+                    statement(ifStatement.elseBranch);
+                    patch(endJump);
+                }
+            }
+            case Statement.WhileStatement whileStatement -> {
+                int start = size;
+                expression(whileStatement.condition);
+                int exitJump = emitJump(Bytecode.JUMP_IF_FALSE);
+                pop(1);
+                statement(whileStatement.body);
+                emit(Bytecode.JUMP, 0);
+                emitInt(start);
+                patch(exitJump);
+            }
+            case Statement.ForStatement forStatement -> {
+                if (forStatement.slots > 0) {
+                    frameBases.add(localTop);
+                    localTop += forStatement.slots;
+                    localCount = Math.max(localCount, localTop);
+                }
+                statement(forStatement.initializer);
+                int start = size;
+                expression(forStatement.condition);
+                int exitJump = emitJump(Bytecode.JUMP_IF_FALSE);
+                pop(1);
+                statement(forStatement.body);
+                if (forStatement.increment != null) {
+                    expression(forStatement.increment);
+                    emit(Bytecode.POP, 0);
+                    pop(1);
+                }
+                emit(Bytecode.JUMP, 0);
+                emitInt(start);
+                patch(exitJump);
+                if (forStatement.slots > 0) {
+                    localTop = frameBases.remove(frameBases.size() - 1);
+                }
+            }
+            case null, default -> {
+            }
+        }
+    }
+
+    // Leaves exactly one value on the stack
+    private void expression(Expression expression) {
+        switch (expression) {
+            case Expression.LiteralExpression literalExpression -> literal(literalExpression.literalValue);
+            case Expression.VariableExpression variableExpression -> {
+                if (variableExpression.depth == Resolver.GLOBAL) {
+                    emitSlot(Bytecode.GET_GLOBAL, global(variableExpression.slot, variableExpression.name));
+                } else {
+                    emitSlot(Bytecode.GET_LOCAL, local(variableExpression.depth, variableExpression.slot));
+                }
+                push();
+            }
+            case Expression.AssignmentExpression assignmentExpression -> {
+                expression(assignmentExpression.value);
+                if (assignmentExpression.depth == Resolver.GLOBAL) {
+                    emitSlot(Bytecode.SET_GLOBAL, global(assignmentExpression.slot, assignmentExpression.name));
+                } else {
+                    emitSlot(Bytecode.SET_LOCAL, local(assignmentExpression.depth, assignmentExpression.slot));
+                }
+            }
+            case Expression.LogicalExpression logicalExpression -> {
+                expression(logicalExpression.left);
+                int endJump = emitJump(logicalExpression.operator.type == TokenType.OR
+                        ? Bytecode.JUMP_IF_TRUE_OR_POP
+                        : Bytecode.JUMP_IF_FALSE_OR_POP);
+                pop(1);
+                expression(logicalExpression.right);
+                patch(endJump);
+            }
+            case Expression.BinaryExpression binaryExpression -> {
+                expression(binaryExpression.left);
+                expression(binaryExpression.right);
+                emit(binaryOpcode(binaryExpression.operator.type), binaryExpression.operator.line);
+                pop(1);
+            }
+            case Expression.UnaryExpression unaryExpression -> {
+                expression(unaryExpression.right);
+                emit(unaryExpression.operator.type == TokenType.NOT ? Bytecode.NOT : Bytecode.NEGATE,
+                        unaryExpression.operator.line);
+            }
+            case Expression.ParenthesesExpression parenthesesExpression ->
+                    expression(parenthesesExpression.expression);
+            case null, default -> literal(null);
+        }
+    }
+
+    private void literal(Object value) {
+        if (value == null) {
+            emit(Bytecode.NULL, 0);
+        } else if (value instanceof Boolean bool) {
+            emit(bool ? Bytecode.TRUE : Bytecode.FALSE, 0);
+        } else {
+            Integer index = constantIndex.get(value);
+            if (index == null) {
+                index = constants.size();
+                constants.add(value);
+                constantIndex.put(value, index);
+            }
+            emitSlot(Bytecode.CONSTANT, index);
+        }
+        push();
+    }
+
+    private static byte binaryOpcode(TokenType operator) {
+        return switch (operator) {
+            case ADD -> Bytecode.ADD;
+            case SUBTRACT -> Bytecode.SUBTRACT;
+            case MULTIPLY -> Bytecode.MULTIPLY;
+            case DIVIDE -> Bytecode.DIVIDE;
+            case EQUIVALENT -> Bytecode.EQUIVALENT;
+            case NOT_EQUAL -> Bytecode.NOT_EQUAL;
+            case LESS_THAN -> Bytecode.LESS_THAN;
+            case LESS_EQUAL -> Bytecode.LESS_EQUAL;
+            case GREATER_THAN -> Bytecode.GREATER_THAN;
+            case GREATER_EQUAL -> Bytecode.GREATER_EQUAL;
+            default -> throw new IllegalArgumentException("Not a binary operator: " + operator);
+        };
+    }
+
+    private int local(int depth, int slot) {
+        return frameBases.get(frameBases.size() - 1 - depth) + slot;
+    }
+
+    private int global(int slot, Token name) {
+        globalNames[slot] = name.text;
+        return slot;
+    }
+
+    private void push() {
+        stack++;
+        maxStack = Math.max(maxStack, stack);
+    }
+
+    private void pop(int count) {
+        stack -= count;
+    }
+
+    private void emit(byte value, int line) {
+        if (size == code.length) {
+            code = Arrays.copyOf(code, size * 2);
+            lines = Arrays.copyOf(lines, size * 2);
+        }
+        lines[size] = line;
+        code[size++] = value;
+    }
+
+    // Emits a constant or variable instruction, in its WIDE form when the slot needs more than a u16
+    private void emitSlot(byte opcode, int slot) {
+        if (slot > 0xFFFF) {
+            emit(Bytecode.WIDE, 0);
+            emit(opcode, 0);
+            emitInt(slot);
+        } else {
+            emit(opcode, 0);
+            emit((byte) (slot >> 8), 0);
+            emit((byte) slot, 0);
+        }
+    }
+
+    private void emitInt(int value) {
+        emit((byte) (value >> 24), 0);
+        emit((byte) (value >> 16), 0);
+        emit((byte) (value >> 8), 0);
+        emit((byte) value, 0);
+    }
+
+    // Emits a jump with a placeholder target and returns the offset of that target
+    private int emitJump(byte opcode) {
+        emit(opcode, 0);
+        int target = size;
+        emitInt(0);
+        return target;
+    }
+
+    // Points a jump emitted by emitJump at the current end of the code
+    private void patch(int target) {
+        code[target] = (byte) (size >> 24);
+        code[target + 1] = (byte) (size >> 16);
+        code[target + 2] = (byte) (size >> 8);
+        code[target + 3] = (byte) size;
+    }
+}
@@ -0,0 +1,361 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Just enough of a JVM class file writer for JvmCompiler: one class with static methods, a
+// constant pool, and method bodies with forward and backward jumps. Classes are written as
+// version 49 (Java 5), which the verifier checks by type inference, so no StackMapTable frames
+// have to be computed.
+public class ClassFileWriter {
+    private static final int MAJOR_VERSION = 49;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    // Constant pool tags
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    // Opcodes
+    static final int ICONST_0 = 0x03;
+    static final int ICONST_1 = 0x04;
+    static final int LDC = 0x12;
+    static final int LDC_W = 0x13;
+    static final int LDC2_W = 0x14;
+    static final int ILOAD = 0x15;
+    static final int DLOAD = 0x18;
+    static final int ALOAD = 0x19;
+    static final int ISTORE = 0x36;
+    static final int DSTORE = 0x39;
+    static final int ASTORE = 0x3A;
+    static final int POP = 0x57;
+    static final int POP2 = 0x58;
+    static final int DUP = 0x59;
+    static final int DUP2 = 0x5C;
+    static final int DADD = 0x63;
+    static final int DMUL = 0x6B;
+    static final int DDIV = 0x6F;
+    static final int DNEG = 0x77;
+    static final int IXOR = 0x82;
+    static final int DCMPL = 0x97;
+    static final int DCMPG = 0x98;
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9A;
+    static final int IFLT = 0x9B;
+    static final int IFGE = 0x9C;
+    static final int IFGT = 0x9D;
+    static final int IFLE = 0x9E;
+    static final int IF_ICMPEQ = 0x9F;
+    static final int IF_ICMPNE = 0xA0;
+    static final int GOTO = 0xA7;
+    static final int RETURN = 0xB1;
+    static final int GETSTATIC = 0xB2;
+    static final int INVOKEVIRTUAL = 0xB6;
+    static final int INVOKESTATIC = 0xB8;
+    static final int WIDE = 0xC4;
+
+    private final String className;
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+    private final Map<String, Integer> poolEntries = new HashMap<>();
+    private int poolCount = 1;
+    private final List<byte[]> methods = new ArrayList<>();
+
+    public ClassFileWriter(String className) {
+        this.className = className;
+    }
+
+    // The class, extending java/lang/Object, with every method added so far
+    public byte[] toByteArray() {
+        int thisClass = classRef(className);
+        int superClass = classRef("java/lang/Object");
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(MAJOR_VERSION);
+            out.writeShort(poolCount);
+            pool.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // fields
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0); // attributes
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Adds a public static method with the given body
+    public void addStaticMethod(String name, String descriptor, Code code) {
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int codeIndex = utf8("Code");
+        byte[] body = code.toByteArray();
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeShort(ACC_PUBLIC | ACC_STATIC);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+            out.writeShort(1);
+            out.writeShort(codeIndex);
+            out.writeInt(2 + 2 + 4 + body.length + 2 + 2);
+            out.writeShort(code.maxStack);
+            out.writeShort(code.maxLocals);
+            out.writeInt(body.length);
+            out.write(body);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // attributes
+            methods.add(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    int utf8(String value) {
+        return entry("U" + value, 1, out -> {
+            out.writeByte(CONSTANT_UTF8);
+            out.writeUTF(value);
+        });
+    }
+
+    int classRef(String internalName) {
+        int name = utf8(internalName);
+        return entry("C" + internalName, 1, out -> {
+            out.writeByte(CONSTANT_CLASS);
+            out.writeShort(name);
+        });
+    }
+
+    int string(String value) {
+        int utf8 = utf8(value);
+        return entry("S" + value, 1, out -> {
+            out.writeByte(CONSTANT_STRING);
+            out.writeShort(utf8);
+        });
+    }
+
+    int doubleConstant(double value) {
+        // Doubles take two pool entries
+        return entry("D" + Double.doubleToRawLongBits(value), 2, out -> {
+            out.writeByte(CONSTANT_DOUBLE);
+            out.writeDouble(value);
+        });
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_METHODREF, owner, name, descriptor);
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_FIELDREF, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        int ownerIndex = classRef(owner);
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int nameAndType = entry("N" + name + ":" + descriptor, 1, out -> {
+            out.writeByte(CONSTANT_NAME_AND_TYPE);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        });
+        return entry(tag + owner + "." + name + ":" + descriptor, 1, out -> {
+            out.writeByte(tag);
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    private interface EntryWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private int entry(String key, int slots, EntryWriter writer) {
+        Integer index = poolEntries.get(key);
+        if (index != null) {
+            return index;
+        }
+        if (poolCount + slots > 0xFFFF) {
+            throw new TooLargeException("Constant pool overflow");
+        }
+        try {
+            writer.write(poolOut);
+        } catch (UTFDataFormatException e) {
+            throw new TooLargeException("String constant too long");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        index = poolCount;
+        poolCount += slots;
+        poolEntries.put(key, index);
+        return index;
+    }
+
+    // Thrown when a method or the constant pool outgrows the class file limits
+    static class TooLargeException extends RuntimeException {
+        TooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    // A jump target. Jumps to it can be emitted before it is placed.
+    static class Label {
+        private int position = -1;
+        // Operand stack height on arrival, -1 until a jump to it or its placement
+        private int stack = -1;
+        private final List<Integer> jumps = new ArrayList<>();
+    }
+
+    // A method body. Tracks the operand stack height as instructions are emitted, so the caller
+    // only states how each instruction changes it.
+    static class Code {
+        // JVM limit on method size
+        private static final int MAX_CODE_LENGTH = 0xFFFF;
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private int stack;
+        private int maxStack;
+        private int maxLocals;
+
+        int size() {
+            return bytes.size();
+        }
+
+        // Reserves the next local slots and returns the first
+        int allocateLocal(int slots) {
+            int local = maxLocals;
+            maxLocals += slots;
+            if (maxLocals > 0xFFFF) {
+                throw new TooLargeException("Too many locals");
+            }
+            return local;
+        }
+
+        void op(int opcode, int stackDelta) {
+            bytes.write(opcode);
+            adjust(stackDelta);
+        }
+
+        // An instruction with a u16 constant pool operand
+        void op(int opcode, int index, int stackDelta) {
+            bytes.write(opcode);
+            bytes.write(index >> 8);
+            bytes.write(index);
+            adjust(stackDelta);
+        }
+
+        void constant(int index, int stackDelta) {
+            if (index < 256) {
+                bytes.write(LDC);
+                bytes.write(index);
+                adjust(stackDelta);
+            } else {
+                op(LDC_W, index, stackDelta);
+            }
+        }
+
+        void local(int opcode, int local, int stackDelta) {
+            if (local < 256) {
+                bytes.write(opcode);
+                bytes.write(local);
+            } else {
+                bytes.write(WIDE);
+                bytes.write(opcode);
+                bytes.write(local >> 8);
+                bytes.write(local);
+            }
+            adjust(stackDelta);
+        }
+
+        void jump(int opcode, Label target, int stackDelta) {
+            int position = bytes.size();
+            bytes.write(opcode);
+            adjust(stackDelta);
+            if (target.stack < 0) {
+                target.stack = stack;
+            }
+            if (target.position >= 0) {
+                writeOffset(target.position - position);
+            } else {
+                target.jumps.add(position);
+                bytes.write(0);
+                bytes.write(0);
+            }
+            if (opcode == GOTO) {
+                // Nothing falls through, the next label says where the stack stands
+                stack = -1;
+            }
+        }
+
+        void place(Label label) {
+            label.position = bytes.size();
+            if (stack < 0) {
+                stack = label.stack;
+            } else if (label.stack < 0) {
+                label.stack = stack;
+            }
+            if (!label.jumps.isEmpty()) {
+                byte[] code = bytes.toByteArray();
+                for (int jump : label.jumps) {
+                    int offset = label.position - jump;
+                    checkOffset(offset);
+                    code[jump + 1] = (byte) (offset >> 8);
+                    code[jump + 2] = (byte) offset;
+                }
+                bytes.reset();
+                bytes.write(code, 0, code.length);
+                label.jumps.clear();
+            }
+        }
+
+        private void writeOffset(int offset) {
+            checkOffset(offset);
+            bytes.write(offset >> 8);
+            bytes.write(offset);
+        }
+
+        private static void checkOffset(int offset) {
+            if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                throw new TooLargeException("Jump offset out of range");
+            }
+        }
+
+        private void adjust(int stackDelta) {
+            stack += stackDelta;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        byte[] toByteArray() {
+            if (bytes.size() > MAX_CODE_LENGTH) {
+                throw new TooLargeException("Method too large");
+            }
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,297 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Turns a program into a tree of closures in one pass over the AST. Each statement becomes a
+// Consumer and each expression a Function of the running program's State, with its operator,
+// variable slots and children bound when the closure is created. Running the program only calls
+// closures: there is no pattern matching on node types left at run time.
+public class ClosureCompiler {
+    // Marks a global slot whose declaration has not run yet
+    private static final Object UNDEFINED = new Object();
+
+    // Variables of a running program
+    static final class State {
+        final Object[] globals;
+        Frame frame;
+
+        State(int globalSlots) {
+            globals = new Object[globalSlots];
+            Arrays.fill(globals, UNDEFINED);
+        }
+    }
+
+    // The program, ready to run any number of times
+    public static Runnable compile(List<Statement> statements) {
+        int globalSlots = Resolver.resolve(statements);
+        Consumer<State> program = sequence(compileAll(statements));
+        return () -> program.accept(new State(globalSlots));
+    }
+
+    private static List<Consumer<State>> compileAll(List<Statement> statements) {
+        List<Consumer<State>> compiled = new ArrayList<>(statements.size());
+        for (Statement statement : statements) {
+            if (statement != null) {
+                compiled.add(compile(statement));
+            }
+        }
+        return compiled;
+    }
+
+    // Runs the statements in order, without a loop for the common short cases
+    private static Consumer<State> sequence(List<Consumer<State>> statements) {
+        switch (statements.size()) {
+            case 0:
+                return state -> {
+                };
+            case 1:
+                return statements.get(0);
+            case 2: {
+                Consumer<State> first = statements.get(0);
+                Consumer<State> second = statements.get(1);
+                return state -> {
+                    first.accept(state);
+                    second.accept(state);
+                };
+            }
+            default: {
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                Consumer<State>[] all = statements.toArray(new Consumer[0]);
+                return state -> {
+                    for (Consumer<State> statement : all) {
+                        statement.accept(state);
+                    }
+                };
+            }
+        }
+    }
+
+    private static Consumer<State> compile(Statement statement) {
+        return switch (statement) {
+            case Statement.PrintStatement printStatement -> {
+                Function<State, Object> expression = compile(printStatement.expression);
+                yield state -> {
+                    Object value = expression.apply(state);
+                    System.out.println(value.toString());
+                };
+            }
+            case Statement.ExpressionStatement expressionStatement -> {
+                Function<State, Object> expression = compile(expressionStatement.expression);
+                yield expression::apply;
+            }
+            case Statement.VariableStatement variableStatement -> compileDefine(variableStatement);
+            case Statement.BlockStatement blockStatement -> {
+                Consumer<State> body = sequence(compileAll(blockStatement.statements));
+                int slots = blockStatement.slots;
+                if (slots == 0) {
+                    // Declares nothing, so needs no frame
+                    yield body;
+                }
+                yield state -> {
+                    Frame previous = state.frame;
+                    state.frame = new Frame(slots, previous);
+                    body.accept(state);
+                    state.frame = previous;
+                };
+            }
+            case Statement.IfStatement ifStatement -> {
+                Function<State, Object> condition = compile(ifStatement.condition);
+                Consumer<State> thenBranch = compileBranch(ifStatement.thenBranch);
+                if (ifStatement.elseBranch == null) {
+                    yield state -> {
+                        if (Operations.isTrue(condition.apply(state))) {
+                            thenBranch.accept(state);
+                        }
+                    };
+                }
+                Consumer<State> elseBranch = compileBranch(ifStatement.elseBranch);
+                yield state -> {
+                    if (Operations.isTrue(condition.apply(state))) {
+                        thenBranch.accept(state);
+                    } else {
+                        elseBranch.accept(state);
+                    }
+                };
+            }
+            case Statement.WhileStatement whileStatement -> {
+                Function<State, Object> condition = compile(whileStatement.condition);
+                Consumer<State> body = compileBranch(whileStatement.body);
+                yield state -> {
+                    while (Operations.isTrue(condition.apply(state))) {
+                        body.accept(state);
+                    }
+                };
+            }
+            case Statement.ForStatement forStatement -> {
+                Consumer<State> initializer = compileBranch(forStatement.initializer);
+                Function<State, Object> condition = compile(forStatement.condition);
+                Consumer<State> body = compileBranch(forStatement.body);
+                Function<State, Object> increment = compile(forStatement.increment);
+                Consumer<State> loop = state -> {
+                    initializer.accept(state);
+                    while (Operations.isTrue(condition.apply(state))) {
+                        body.accept(state);
+                        increment.apply(state);
+                    }
+                };
+                int slots = forStatement.slots;
+                if (slots == 0) {
+                    yield loop;
+                }
+                // One frame for the loop variable, shared by every iteration
+                yield state -> {
+                    Frame previous = state.frame;
+                    state.frame = new Frame(slots, previous);
+                    loop.accept(state);
+                    state.frame = previous;
+                };
+            }
+            default -> throw new IllegalArgumentException("Unknown statement " + statement.getClass().getSimpleName());
+        };
+    }
+
+    private static Consumer<State> compileBranch(Statement statement) {
+        return statement == null ? state -> {
+        } : compile(statement);
+    }
+
+    private static Consumer<State> compileDefine(Statement.VariableStatement statement) {
+        Function<State, Object> initializer = statement.initializer == null ? state -> null
+                : compile(statement.initializer);
+        int slot = statement.slot;
+        if (statement.depth == Resolver.GLOBAL) {
+            return state -> state.globals[slot] = initializer.apply(state);
+        }
+        return state -> state.frame.slots[slot] = initializer.apply(state);
+    }
+
+    private static Function<State, Object> compile(Expression expression) {
+        return switch (expression) {
+            case Expression.LiteralExpression literalExpression -> {
+                Object value = literalExpression.literalValue;
+                yield state -> value;
+            }
+            case Expression.ParenthesesExpression parenthesesExpression -> compile(parenthesesExpression.expression);
+            case Expression.VariableExpression variableExpression -> compileRead(variableExpression);
+            case Expression.AssignmentExpression assignmentExpression -> compileAssign(assignmentExpression);
+            case Expression.LogicalExpression logicalExpression -> {
+                Function<State, Object> left = compile(logicalExpression.left);
+                Function<State, Object> right = compile(logicalExpression.right);
+                if (logicalExpression.operator.type == TokenType.OR) {
+                    yield state -> {
+                        Object value = left.apply(state);
+                        return Operations.isTrue(value) ? value : right.apply(state);
+                    };
+                }
+                yield state -> {
+                    Object value = left.apply(state);
+                    return Operations.isTrue(value) ? right.apply(state) : value;
+                };
+            }
+            case Expression.UnaryExpression unaryExpression -> {
+                Function<State, Object> operand = compile(unaryExpression.right);
+                if (unaryExpression.operator.type == TokenType.NOT) {
+                    yield state -> !Operations.isTrue(operand.apply(state));
+                }
+                int line = unaryExpression.operator.line;
+                yield state -> {
+                    Object value = operand.apply(state);
+                    if (value instanceof Double number) {
+                        return -number;
+                    }
+                    return Operations.unary(TokenType.SUBTRACT, line, value);
+                };
+            }
+            case Expression.BinaryExpression binaryExpression -> {
+                Function<State, Object> left = compile(binaryExpression.left);
+                Function<State, Object> right = compile(binaryExpression.right);
+                BinaryOperator<Object> operator = operator(binaryExpression.operator);
+                yield state -> operator.apply(left.apply(state), right.apply(state));
+            }
+            case null -> state -> null;
+            default -> throw new IllegalArgumentException(
+                    "Unknown expression " + expression.getClass().getSimpleName());
+        };
+    }
+
+    private static Function<State, Object> compileRead(Expression.VariableExpression expression) {
+        int depth = expression.depth;
+        int slot = expression.slot;
+        if (depth == Resolver.GLOBAL) {
+            return state -> {
+                Object value = state.globals[slot];
+                return value == UNDEFINED ? null : value;
+            };
+        }
+        if (depth == 0) {
+            return state -> state.frame.slots[slot];
+        }
+        return state -> state.frame.ancestor(depth).slots[slot];
+    }
+
+    private static Function<State, Object> compileAssign(Expression.AssignmentExpression expression) {
+        Function<State, Object> value = compile(expression.value);
+        int depth = expression.depth;
+        int slot = expression.slot;
+        if (depth == Resolver.GLOBAL) {
+            String name = expression.name.text;
+            return state -> {
+                Object result = value.apply(state);
+                if (state.globals[slot] == UNDEFINED) {
+                    System.err.println("Undefined variable: " + name);
+                    System.exit(ErrorCode.INTERPRET_ERROR);
+                }
+                state.globals[slot] = result;
+                return result;
+            };
+        }
+        return state -> {
+            Object result = value.apply(state);
+            state.frame.ancestor(depth).slots[slot] = result;
+            return result;
+        };
+    }
+
+    // The operator with a fast path for its usual operand types, falling back to Operations for
+    // everything else, including type errors
+    private static BinaryOperator<Object> operator(Token operator) {
+        TokenType type = operator.type;
+        int line = operator.line;
+        return switch (type) {
+            case ADD -> (left, right) -> {
+                if (left instanceof Double a && right instanceof Double b) {
+                    return a + b;
+                }
+                if (left instanceof String a && right instanceof String b) {
+                    return a + b;
+                }
+                return Operations.binary(type, line, left, right);
+            };
+            // The tree walker adds for subtraction too
+            case SUBTRACT -> (left, right) -> left instanceof Double a && right instanceof Double b
+                    ? (Object) (a + b) : Operations.binary(type, line, left, right);
+            case MULTIPLY -> (left, right) -> left instanceof Double a && right instanceof Double b
+                    ? (Object) (a * b) : Operations.binary(type, line, left, right);
+            case DIVIDE -> (left, right) -> left instanceof Double a && right instanceof Double b
+                    ? (Object) (a / b) : Operations.binary(type, line, left, right);
+            case LESS_THAN -> (left, right) -> left instanceof Double a && right instanceof Double b
+                    ? (Object) (a < b) : Operations.binary(type, line, left, right);
+            case LESS_EQUAL -> (left, right) -> left instanceof Double a && right instanceof Double b
+                    ? (Object) (a <= b) : Operations.binary(type, line, left, right);
+            case GREATER_THAN -> (left, right) -> left instanceof Double a && right instanceof Double b
+                    ? (Object) (a > b) : Operations.binary(type, line, left, right);
+            case GREATER_EQUAL -> (left, right) -> left instanceof Double a && right instanceof Double b
+                    ? (Object) (a >= b) : Operations.binary(type, line, left, right);
+            case EQUIVALENT -> Operations::isEquivalent;
+            case NOT_EQUAL -> (left, right) -> !Operations.isEquivalent(left, right);
+            default -> (left, right) -> Operations.binary(type, line, left, right);
+        };
+    }
+}
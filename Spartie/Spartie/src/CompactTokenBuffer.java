@@ -0,0 +1,231 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.Arrays;
+
+// Struct-of-arrays token storage. Each token costs a type code, a start offset, a length and a
+// line (13 bytes) instead of a Token object with its own text String. Text is cut from the source
+// only when asked for, and only NUMBER literals are kept in a side table since every other literal
+// is the token text itself.
+public class CompactTokenBuffer {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final CharSequence source;
+
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private int[] lines = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // Literal side table, sorted by token index
+    private int[] literalTokens = new int[16];
+    private Object[] literalValues = new Object[16];
+    private int literalCount = 0;
+
+    public CompactTokenBuffer(CharSequence source) {
+        this.source = source;
+    }
+
+    public void add(TokenType type, int start, int length, int line, Object literal) {
+        ensureCapacity(size + 1);
+        if (type == TokenType.NUMBER) {
+            if (literalCount == literalTokens.length) {
+                literalTokens = Arrays.copyOf(literalTokens, Math.max(16, literalCount * 2));
+                literalValues = Arrays.copyOf(literalValues, Math.max(16, literalCount * 2));
+            }
+            literalTokens[literalCount] = size;
+            literalValues[literalCount] = literal;
+            literalCount++;
+        }
+
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        size++;
+    }
+
+    // Replaces tokens [from, to) with every token of run but its EOF, then moves the tokens that
+    // follow by offsetDelta characters and lineDelta lines
+    void replace(int from, int to, CompactTokenBuffer run, int offsetDelta, int lineDelta) {
+        int inserted = run.size - 1;
+        int delta = inserted - (to - from);
+        int tail = size - to;
+
+        ensureCapacity(size + delta);
+        System.arraycopy(types, to, types, to + delta, tail);
+        System.arraycopy(starts, to, starts, to + delta, tail);
+        System.arraycopy(lengths, to, lengths, to + delta, tail);
+        System.arraycopy(lines, to, lines, to + delta, tail);
+        System.arraycopy(run.types, 0, types, from, inserted);
+        System.arraycopy(run.starts, 0, starts, from, inserted);
+        System.arraycopy(run.lengths, 0, lengths, from, inserted);
+        System.arraycopy(run.lines, 0, lines, from, inserted);
+        size += delta;
+        for (int i = from + inserted; i < size; i++) {
+            starts[i] += offsetDelta;
+            lines[i] += lineDelta;
+        }
+
+        // Same for the literal side table, whose token indices move by delta
+        int literalFrom = literalIndex(from);
+        int literalTo = literalIndex(to);
+        int literalDelta = run.literalCount - (literalTo - literalFrom);
+        int literalTail = literalCount - literalTo;
+        if (literalCount + literalDelta > literalTokens.length) {
+            int capacity = Math.max(literalTokens.length * 2, literalCount + literalDelta);
+            literalTokens = Arrays.copyOf(literalTokens, capacity);
+            literalValues = Arrays.copyOf(literalValues, capacity);
+        }
+        System.arraycopy(literalTokens, literalTo, literalTokens, literalTo + literalDelta, literalTail);
+        System.arraycopy(literalValues, literalTo, literalValues, literalTo + literalDelta, literalTail);
+        for (int i = 0; i < run.literalCount; i++) {
+            literalTokens[literalFrom + i] = from + run.literalTokens[i];
+            literalValues[literalFrom + i] = run.literalValues[i];
+        }
+        literalCount += literalDelta;
+        for (int i = literalFrom + run.literalCount; i < literalCount; i++) {
+            literalTokens[i] += delta;
+        }
+        Arrays.fill(literalValues, literalCount, literalValues.length, null);
+    }
+
+    // Index of the first token starting at or after offset
+    int tokenAt(int offset) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Index into the literal side table of the first literal at or after token index
+    private int literalIndex(int index) {
+        int found = Arrays.binarySearch(literalTokens, 0, literalCount, index);
+        return found >= 0 ? found : -found - 1;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > types.length) {
+            capacity = Math.max(capacity, types.length * 2);
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+        }
+    }
+
+    // Drop the spare capacity left over from growing
+    public void trimToSize() {
+        types = Arrays.copyOf(types, size);
+        starts = Arrays.copyOf(starts, size);
+        lengths = Arrays.copyOf(lengths, size);
+        lines = Arrays.copyOf(lines, size);
+        literalTokens = Arrays.copyOf(literalTokens, literalCount);
+        literalValues = Arrays.copyOf(literalValues, literalCount);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public CharSequence source() {
+        return source;
+    }
+
+    public TokenType type(int index) {
+        return TYPES[types[index]];
+    }
+
+    public int start(int index) {
+        return starts[index];
+    }
+
+    public int length(int index) {
+        return lengths[index];
+    }
+
+    public int line(int index) {
+        return lines[index];
+    }
+
+    public String text(int index) {
+        if (type(index) == TokenType.EOF) {
+            return null;
+        }
+        return source.subSequence(starts[index], starts[index] + lengths[index]).toString();
+    }
+
+    public Object literal(int index) {
+        return literal(index, text(index));
+    }
+
+    // A standalone Token for one entry, for code that still wants objects
+    public Token token(int index) {
+        TokenType type = type(index);
+        String text = text(index);
+        return new Token(type, text, lines[index], literal(index, text));
+    }
+
+    // Reads the tokens in order so SpartieParser can run directly on the buffer
+    public TokenStream stream() {
+        return new Cursor();
+    }
+
+    private Object literal(int index, String text) {
+        switch (type(index)) {
+            case NUMBER:
+                int found = Arrays.binarySearch(literalTokens, 0, literalCount, index);
+                return literalValues[found];
+            case STRING, IDENTIFIER:
+            case IF, ELSE, FOR, WHILE, TRUE, FALSE, FUN, RETURN, VAR, PRINT, NULL:
+                return text;
+            default:
+                return null;
+        }
+    }
+
+    private class Cursor implements TokenStream {
+        private int current = 0;
+
+        // The parser peeks at the same token several times, so it is materialized only once
+        private Token currentToken;
+        private Token previousToken;
+
+        @Override
+        public Token peek(int distance) {
+            if (distance == 0) {
+                if (currentToken == null) {
+                    currentToken = token(Math.min(current, size - 1));
+                }
+                return currentToken;
+            }
+            return token(Math.min(current + distance, size - 1));
+        }
+
+        @Override
+        public Token previous() {
+            if (previousToken == null) {
+                throw new IllegalStateException("No token has been consumed yet");
+            }
+            return previousToken;
+        }
+
+        @Override
+        public Token advance() {
+            previousToken = peek(0);
+            currentToken = null;
+            current++;
+            return previousToken;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.ArrayList;
+import java.util.List;
+
+// Optimization pass run between parsing and interpretation. It evaluates operators whose operands
+// are all literals once, at compile time, strips parentheses, and drops if/while branches that a
+// literal condition can never take. The tree is rewritten in place.
+//
+// An ill-typed constant such as -"a" or 1 < "b" is left as it is, so the type error is still
+// reported on the right line, and only if the program actually evaluates it.
+public class ConstantFolder {
+    public static List<Statement> fold(List<Statement> statements) {
+        List<Statement> folded = new ArrayList<>(statements.size());
+        for (Statement statement : statements) {
+            Statement result = fold(statement);
+            if (result != null) {
+                folded.add(result);
+            }
+        }
+        return folded;
+    }
+
+    // The folded statement, or null when it can never do anything
+    private static Statement fold(Statement statement) {
+        switch (statement) {
+            case Statement.PrintStatement printStatement ->
+                    printStatement.expression = fold(printStatement.expression);
+            case Statement.ExpressionStatement expressionStatement ->
+                    expressionStatement.expression = fold(expressionStatement.expression);
+            case Statement.VariableStatement variableStatement ->
+                    variableStatement.initializer = fold(variableStatement.initializer);
+            case Statement.BlockStatement blockStatement ->
+                    blockStatement.statements = fold(blockStatement.statements);
+            case Statement.IfStatement ifStatement -> {
+                ifStatement.condition = fold(ifStatement.condition);
+                ifStatement.thenBranch = foldBranch(ifStatement.thenBranch);
+                ifStatement.elseBranch = foldBranch(ifStatement.elseBranch);
+                if (ifStatement.condition instanceof Expression.LiteralExpression literal) {
+                    return Operations.isTrue(literal.literalValue) ? ifStatement.thenBranch : ifStatement.elseBranch;
+                }
+            }
+            case Statement.WhileStatement whileStatement -> {
+                whileStatement.condition = fold(whileStatement.condition);
+                whileStatement.body = foldBranch(whileStatement.body);
+                if (whileStatement.condition instanceof Expression.LiteralExpression literal
+                        && !Operations.isTrue(literal.literalValue)) {
+                    return null;
+                }
+            }
+            case Statement.ForStatement forStatement -> {
+                forStatement.initializer = fold(forStatement.initializer);
+                forStatement.condition = fold(forStatement.condition);
+                forStatement.increment = fold(forStatement.increment);
+                forStatement.body = foldBranch(forStatement.body);
+                if (forStatement.condition instanceof Expression.LiteralExpression literal
+                        && !Operations.isTrue(literal.literalValue)) {
+                    // Only the initializer runs, still in a scope of its own
+                    return forStatement.initializer == null ? null
+                            : new Statement.BlockStatement(new ArrayList<>(List.of(forStatement.initializer)));
+                }
+            }
+            case Statement.FunctionStatement functionStatement ->
+                    functionStatement.body = fold(functionStatement.body);
+            case Statement.ReturnStatement returnStatement -> returnStatement.value = fold(returnStatement.value);
+            case null, default -> {
+            }
+        }
+        return statement;
+    }
+
+    // A branch keeps its place even if it folds away
+    private static Statement foldBranch(Statement statement) {
+        if (statement == null) {
+            return null;
+        }
+        Statement folded = fold(statement);
+        return folded != null ? folded : new Statement.BlockStatement(new ArrayList<>());
+    }
+
+    public static Expression fold(Expression expression) {
+        switch (expression) {
+            case Expression.ParenthesesExpression parenthesesExpression -> {
+                return fold(parenthesesExpression.expression);
+            }
+            case Expression.AssignmentExpression assignmentExpression -> {
+                assignmentExpression.value = fold(assignmentExpression.value);
+                return assignmentExpression;
+            }
+            case Expression.LogicalExpression logicalExpression -> {
+                logicalExpression.left = fold(logicalExpression.left);
+                logicalExpression.right = fold(logicalExpression.right);
+                if (logicalExpression.left instanceof Expression.LiteralExpression literal) {
+                    // Either it short-circuits to the left value or it evaluates to the right one
+                    boolean left = Operations.isTrue(literal.literalValue);
+                    boolean shortCircuits = logicalExpression.operator.type == TokenType.OR ? left : !left;
+                    return shortCircuits ? literal : logicalExpression.right;
+                }
+                return logicalExpression;
+            }
+            case Expression.UnaryExpression unaryExpression -> {
+                unaryExpression.right = fold(unaryExpression.right);
+                if (unaryExpression.right instanceof Expression.LiteralExpression literal
+                        && (unaryExpression.operator.type == TokenType.NOT || literal.literalValue instanceof Double)) {
+                    return new Expression.LiteralExpression(Operations.unary(unaryExpression.operator.type,
+                            unaryExpression.operator.line, literal.literalValue));
+                }
+                return unaryExpression;
+            }
+            case Expression.BinaryExpression binaryExpression -> {
+                binaryExpression.left = fold(binaryExpression.left);
+                binaryExpression.right = fold(binaryExpression.right);
+                if (binaryExpression.left instanceof Expression.LiteralExpression left
+                        && binaryExpression.right instanceof Expression.LiteralExpression right
+                        && Operations.isWellTyped(binaryExpression.operator.type, left.literalValue,
+                                right.literalValue)) {
+                    return new Expression.LiteralExpression(Operations.binary(binaryExpression.operator.type,
+                            binaryExpression.operator.line, left.literalValue, right.literalValue));
+                }
+                return binaryExpression;
+            }
+            case Expression.CallExpression callExpression -> {
+                callExpression.callee = fold(callExpression.callee);
+                callExpression.arguments.replaceAll(ConstantFolder::fold);
+                return callExpression;
+            }
+            case null, default -> {
+                return expression;
+            }
+        }
+    }
+}
@@ -37,9 +37,13 @@ public class Environment {
 
     // Assign - Replace the value of an existing variable
     void assign(Token name, Object value) {
+        assign(name.text, value);
+    }
+
+    void assign(String name, Object value) {
         // TODO: If the variable exists, then we can assign, otherwise we have an error
-        if (variables.containsKey(name.text)) {
-            variables.put(name.text, value);
+        if (variables.containsKey(name)) {
+            variables.put(name, value);
         }
         // TODO: If we don't have it in our current environment, try assigning in the
         // enclosing environment
@@ -48,7 +52,7 @@ public class Environment {
         }
         // Exit on error if we get this far since the variable is undefined
         else {
-            System.err.println("Undefined variable: " + name.text);
+            System.err.println("Undefined variable: " + name);
             System.exit(ErrorCode.INTERPRET_ERROR);
         }
     }
@@ -2,11 +2,18 @@
 /**
  * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
  */
+import java.util.List;
+
 abstract class Expression {
 
     static class AssignmentExpression extends Expression {
         public Token name;
         public Expression value;
+        // Set by the Resolver: frames to walk out, or Resolver.GLOBAL, and the slot there
+        public int depth = Resolver.UNRESOLVED;
+        public int slot = Resolver.UNRESOLVED;
+        // Set by the Environment walker the first time it runs: the SymbolEnvironment id of name
+        public int symbol = Resolver.UNRESOLVED;
 
         public AssignmentExpression(Token name, Expression value) {
             this.name = name;
@@ -48,8 +55,26 @@ abstract class Expression {
         }
     }
 
+    static class CallExpression extends Expression {
+        public Expression callee;
+        // The closing parenthesis, for the line of errors
+        public Token paren;
+        public List<Expression> arguments;
+
+        public CallExpression(Expression callee, Token paren, List<Expression> arguments) {
+            this.callee = callee;
+            this.paren = paren;
+            this.arguments = arguments;
+        }
+    }
+
     static class VariableExpression extends Expression {
         public Token name;
+        // Set by the Resolver: frames to walk out, or Resolver.GLOBAL, and the slot there
+        public int depth = Resolver.UNRESOLVED;
+        public int slot = Resolver.UNRESOLVED;
+        // Set by the Environment walker the first time it runs: the SymbolEnvironment id of name
+        public int symbol = Resolver.UNRESOLVED;
 
         public VariableExpression(Token name) {
             this.name = name;
@@ -58,9 +83,15 @@ abstract class Expression {
 
     static class LiteralExpression extends Expression {
         public Object literalValue;
+        // The value as a long, for SpartieInterpreter's integer arithmetic, when it is a whole
+        // number a long holds exactly
+        public final boolean isInteger;
+        public final long integerValue;
 
         public LiteralExpression(Object literalValue) {
             this.literalValue = literalValue;
+            this.isInteger = literalValue instanceof Double number && SpartieInterpreter.isInteger(number);
+            this.integerValue = isInteger ? (long) (double) (Double) literalValue : 0;
         }
     }
 
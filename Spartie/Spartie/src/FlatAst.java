@@ -0,0 +1,217 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// A whole program stored in a handful of primitive arrays instead of a graph of node objects.
+// Every node is an index: its kind, up to three operands and its line live at that index in the
+// parallel arrays. Operands are node indices, constant pool indices or operator token types,
+// depending on the kind:
+//
+//   PRINT, EXPRESSION      first = expression
+//   VARIABLE               first = name constant, second = initializer or NONE
+//   BLOCK                  first = offset into children, second = child count
+//   IF                     first = condition, second = then branch, third = else branch or NONE
+//   WHILE                  first = condition, second = body
+//   ASSIGNMENT             first = name constant, second = value
+//   LOGICAL, BINARY        first = left, second = right, third = operator TokenType ordinal
+//   UNARY                  first = operand, third = operator TokenType ordinal
+//   VARIABLE_REFERENCE     first = name constant
+//   LITERAL                first = value constant
+//   PARENTHESES            first = expression
+//
+// The top level statements are a BLOCK-like run of children at [rootOffset, rootOffset + rootCount)
+// that does not open a scope. Children are added before their parent, so a node's operands always
+// have smaller indices than the node itself.
+public class FlatAst {
+    public static final int NONE = -1;
+
+    // Node kinds
+    static final byte PRINT = 1;
+    static final byte EXPRESSION = 2;
+    static final byte VARIABLE = 3;
+    static final byte BLOCK = 4;
+    static final byte IF = 5;
+    static final byte WHILE = 6;
+    static final byte ASSIGNMENT = 7;
+    static final byte LOGICAL = 8;
+    static final byte BINARY = 9;
+    static final byte UNARY = 10;
+    static final byte VARIABLE_REFERENCE = 11;
+    static final byte LITERAL = 12;
+    static final byte PARENTHESES = 13;
+
+    final byte[] kinds;
+    final int[] first;
+    final int[] second;
+    final int[] third;
+    final int[] lines;
+    final int[] children;
+    final Object[] constants;
+    final int rootOffset;
+    final int rootCount;
+
+    private FlatAst(Builder builder) {
+        this.kinds = Arrays.copyOf(builder.kinds, builder.size);
+        this.first = Arrays.copyOf(builder.first, builder.size);
+        this.second = Arrays.copyOf(builder.second, builder.size);
+        this.third = Arrays.copyOf(builder.third, builder.size);
+        this.lines = Arrays.copyOf(builder.lines, builder.size);
+        this.children = Arrays.copyOf(builder.children, builder.childCount);
+        this.constants = builder.constants.toArray(new Object[0]);
+        this.rootOffset = builder.rootOffset;
+        this.rootCount = builder.rootCount;
+    }
+
+    // Converts a parsed program. Repeated names and literal values share one constant.
+    public static FlatAst from(List<Statement> statements) {
+        Builder builder = new Builder();
+        int[] root = builder.statements(statements);
+        builder.rootOffset = builder.addChildren(root);
+        builder.rootCount = root.length;
+        return new FlatAst(builder);
+    }
+
+    // Number of nodes
+    public int size() {
+        return kinds.length;
+    }
+
+    public int constantCount() {
+        return constants.length;
+    }
+
+    private static class Builder {
+        private byte[] kinds = new byte[64];
+        private int[] first = new int[64];
+        private int[] second = new int[64];
+        private int[] third = new int[64];
+        private int[] lines = new int[64];
+        private int size;
+
+        private int[] children = new int[64];
+        private int childCount;
+
+        private final ArrayList<Object> constants = new ArrayList<>();
+        private final Map<Object, Integer> constantIndex = new HashMap<>();
+
+        private int rootOffset;
+        private int rootCount;
+
+        int[] statements(List<Statement> statements) {
+            int[] nodes = new int[statements.size()];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = statement(statements.get(i));
+            }
+            return nodes;
+        }
+
+        int statement(Statement statement) {
+            return switch (statement) {
+                case null -> NONE;
+                case Statement.PrintStatement printStatement ->
+                        add(PRINT, expression(printStatement.expression), NONE, NONE, 0);
+                case Statement.ExpressionStatement expressionStatement ->
+                        add(EXPRESSION, expression(expressionStatement.expression), NONE, NONE, 0);
+                case Statement.VariableStatement variableStatement -> {
+                    int initializer = expression(variableStatement.initializer);
+                    yield add(VARIABLE, constant(variableStatement.name.text), initializer, NONE,
+                            variableStatement.name.line);
+                }
+                case Statement.BlockStatement blockStatement -> {
+                    int[] nodes = statements(blockStatement.statements);
+                    yield add(BLOCK, addChildren(nodes), nodes.length, NONE, 0);
+                }
+                case Statement.IfStatement ifStatement -> {
+                    int condition = expression(ifStatement.condition);
+                    int thenBranch = statement(ifStatement.thenBranch);
+                    yield add(IF, condition, thenBranch, statement(ifStatement.elseBranch), 0);
+                }
+                case Statement.WhileStatement whileStatement -> {
+                    int condition = expression(whileStatement.condition);
+                    yield add(WHILE, condition, statement(whileStatement.body), NONE, 0);
+                }
+                // Stored as the equivalent block and while loop
+                case Statement.ForStatement forStatement -> statement(forStatement.desugar());
+                default -> throw new IllegalArgumentException("Cannot flatten " + statement.getClass().getName());
+            };
+        }
+
+        int expression(Expression expression) {
+            return switch (expression) {
+                case null -> NONE;
+                case Expression.AssignmentExpression assignmentExpression -> {
+                    int value = expression(assignmentExpression.value);
+                    yield add(ASSIGNMENT, constant(assignmentExpression.name.text), value, NONE,
+                            assignmentExpression.name.line);
+                }
+                case Expression.LogicalExpression logicalExpression -> {
+                    int left = expression(logicalExpression.left);
+                    int right = expression(logicalExpression.right);
+                    yield add(LOGICAL, left, right, logicalExpression.operator.type.ordinal(),
+                            logicalExpression.operator.line);
+                }
+                case Expression.BinaryExpression binaryExpression -> {
+                    int left = expression(binaryExpression.left);
+                    int right = expression(binaryExpression.right);
+                    yield add(BINARY, left, right, binaryExpression.operator.type.ordinal(),
+                            binaryExpression.operator.line);
+                }
+                case Expression.UnaryExpression unaryExpression ->
+                        add(UNARY, expression(unaryExpression.right), NONE, unaryExpression.operator.type.ordinal(),
+                                unaryExpression.operator.line);
+                case Expression.VariableExpression variableExpression ->
+                        add(VARIABLE_REFERENCE, constant(variableExpression.name.text), NONE, NONE,
+                                variableExpression.name.line);
+                case Expression.LiteralExpression literalExpression ->
+                        add(LITERAL, constant(literalExpression.literalValue), NONE, NONE, 0);
+                case Expression.ParenthesesExpression parenthesesExpression ->
+                        add(PARENTHESES, expression(parenthesesExpression.expression), NONE, NONE, 0);
+                default -> throw new IllegalArgumentException("Cannot flatten " + expression.getClass().getName());
+            };
+        }
+
+        int add(byte kind, int a, int b, int c, int line) {
+            if (size == kinds.length) {
+                int capacity = size * 2;
+                kinds = Arrays.copyOf(kinds, capacity);
+                first = Arrays.copyOf(first, capacity);
+                second = Arrays.copyOf(second, capacity);
+                third = Arrays.copyOf(third, capacity);
+                lines = Arrays.copyOf(lines, capacity);
+            }
+            kinds[size] = kind;
+            first[size] = a;
+            second[size] = b;
+            third[size] = c;
+            lines[size] = line;
+            return size++;
+        }
+
+        // Appends a child list and returns its offset
+        int addChildren(int[] nodes) {
+            if (childCount + nodes.length > children.length) {
+                children = Arrays.copyOf(children, Math.max(children.length * 2, childCount + nodes.length));
+            }
+            System.arraycopy(nodes, 0, children, childCount, nodes.length);
+            int offset = childCount;
+            childCount += nodes.length;
+            return offset;
+        }
+
+        int constant(Object value) {
+            Integer index = constantIndex.get(value);
+            if (index == null) {
+                index = constants.size();
+                constants.add(value);
+                constantIndex.put(value, index);
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+// Runs a FlatAst by walking node indices. Scoping, results and errors are the same as
+// SpartieInterpreter; only the program representation differs. Variables live in SymbolEnvironments,
+// keyed by the symbol id of each name constant, looked up once before the program runs.
+public class FlatAstInterpreter {
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private SymbolEnvironment globalEnvironment = new SymbolEnvironment();
+
+    private byte[] kinds;
+    private int[] first;
+    private int[] second;
+    private int[] third;
+    private int[] lines;
+    private int[] children;
+    private Object[] constants;
+    // Symbol id of each constant that names a variable
+    private int[] symbols;
+
+    public void run(FlatAst ast) {
+        kinds = ast.kinds;
+        first = ast.first;
+        second = ast.second;
+        third = ast.third;
+        lines = ast.lines;
+        children = ast.children;
+        constants = ast.constants;
+        symbols = new int[constants.length];
+        for (int node = 0; node < kinds.length; node++) {
+            byte kind = kinds[node];
+            if (kind == FlatAst.VARIABLE || kind == FlatAst.VARIABLE_REFERENCE || kind == FlatAst.ASSIGNMENT) {
+                symbols[first[node]] = SymbolEnvironment.symbol((String) constants[first[node]]);
+            }
+        }
+
+        for (int i = ast.rootOffset; i < ast.rootOffset + ast.rootCount; i++) {
+            interpret(children[i]);
+        }
+    }
+
+    private void interpret(int node) {
+        if (node == FlatAst.NONE) {
+            return;
+        }
+        switch (kinds[node]) {
+            case FlatAst.PRINT -> {
+                Object value = evaluate(first[node]);
+                System.out.println(value.toString());
+            }
+            case FlatAst.EXPRESSION -> evaluate(first[node]);
+            case FlatAst.VARIABLE -> {
+                Object value = null;
+                if (second[node] != FlatAst.NONE) {
+                    value = evaluate(second[node]);
+                }
+                globalEnvironment.define(symbols[first[node]], value);
+            }
+            case FlatAst.BLOCK -> interpretBlock(first[node], second[node]);
+            case FlatAst.IF -> {
+                if (Operations.isTrue(evaluate(first[node]))) {
+                    interpret(second[node]);
+                } else {
+                    interpret(third[node]);
+                }
+            }
+            case FlatAst.WHILE -> {
+                int condition = first[node];
+                int body = second[node];
+                while (Operations.isTrue(evaluate(condition))) {
+                    interpret(body);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void interpretBlock(int offset, int count) {
+        SymbolEnvironment previous = globalEnvironment;
+
+        globalEnvironment = new SymbolEnvironment(previous);
+        for (int i = offset; i < offset + count; i++) {
+            interpret(children[i]);
+        }
+
+        // Restore environment
+        globalEnvironment = previous;
+    }
+
+    private Object evaluate(int node) {
+        if (node == FlatAst.NONE) {
+            return null;
+        }
+        switch (kinds[node]) {
+            case FlatAst.LITERAL:
+                return constants[first[node]];
+            case FlatAst.VARIABLE_REFERENCE:
+                return globalEnvironment.get(symbols[first[node]]);
+            case FlatAst.ASSIGNMENT: {
+                Object value = evaluate(second[node]);
+                globalEnvironment.assign(symbols[first[node]], value);
+                return value;
+            }
+            case FlatAst.BINARY: {
+                Object left = evaluate(first[node]);
+                Object right = evaluate(second[node]);
+                return Operations.binary(TOKEN_TYPES[third[node]], lines[node], left, right);
+            }
+            case FlatAst.UNARY:
+                return Operations.unary(TOKEN_TYPES[third[node]], lines[node], evaluate(first[node]));
+            case FlatAst.LOGICAL: {
+                Object left = evaluate(first[node]);
+                // Short-circuit
+                if (TOKEN_TYPES[third[node]] == TokenType.OR ? Operations.isTrue(left) : !Operations.isTrue(left)) {
+                    return left;
+                }
+                return evaluate(second[node]);
+            }
+            case FlatAst.PARENTHESES:
+                return evaluate(first[node]);
+            default:
+                return null;
+        }
+    }
+}
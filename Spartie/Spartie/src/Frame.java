@@ -0,0 +1,26 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+// Array-backed environment for resolved programs: the variables of one block, indexed by the
+// slots the Resolver assigned
+public class Frame {
+    final Object[] slots;
+    final Frame enclosing;
+    // Numbers SpartieInterpreter stores without boxing them, in the slots whose Object holds one
+    // of its markers: a long as it is, or the bits of a double. Allocated by the first such store.
+    long[] numbers;
+
+    public Frame(int size, Frame enclosing) {
+        this.slots = new Object[size];
+        this.enclosing = enclosing;
+    }
+
+    Frame ancestor(int depth) {
+        Frame frame = this;
+        for (int i = 0; i < depth; i++) {
+            frame = frame.enclosing;
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,95 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+// Keeps the tokens of an edited document up to date. No token spans a newline, so an edit only
+// needs the lines it touches lexed again: the tokens before them are kept as they are and the
+// tokens after them are kept with their offsets and lines moved. Lexing work depends on the size
+// of the edit, not on the size of the document.
+public class IncrementalScanner {
+    private final StringBuilder source;
+    private final SymbolTable symbols = new SymbolTable();
+    private CompactTokenBuffer tokens;
+
+    // Throws ScanError if the source does not scan
+    public IncrementalScanner(CharSequence source) {
+        this.source = new StringBuilder(source);
+        this.tokens = scanAll();
+    }
+
+    public CharSequence source() {
+        return source;
+    }
+
+    // Tokens of the current source. The buffer is updated in place by edit().
+    public CompactTokenBuffer tokens() {
+        return tokens;
+    }
+
+    // Replaces removedLength characters at offset with insertedText. Throws ScanError if the edited
+    // lines do not scan; the edit is still applied and the next edit scans the whole source again.
+    public CompactTokenBuffer edit(int offset, int removedLength, String insertedText) {
+        if (offset < 0 || removedLength < 0 || offset + removedLength > source.length()) {
+            throw new IndexOutOfBoundsException("Edit [" + offset + ", " + (offset + removedLength)
+                    + ") is outside the source of length " + source.length());
+        }
+
+        if (tokens == null) {
+            source.replace(offset, offset + removedLength, insertedText);
+            tokens = scanAll();
+            return tokens;
+        }
+
+        // The whole lines touched by the edit, in the old source
+        int lineStart = offset;
+        while (lineStart > 0 && source.charAt(lineStart - 1) != '\n') {
+            lineStart--;
+        }
+        int lineEnd = offset + removedLength;
+        while (lineEnd < source.length() && source.charAt(lineEnd) != '\n') {
+            lineEnd++;
+        }
+        int line = lineOf(lineStart);
+        int from = tokens.tokenAt(lineStart);
+        int to = tokens.tokenAt(lineEnd);
+
+        int offsetDelta = insertedText.length() - removedLength;
+        int lineDelta = countNewlines(insertedText, 0, insertedText.length())
+                - countNewlines(source, offset, offset + removedLength);
+        source.replace(offset, offset + removedLength, insertedText);
+
+        CompactTokenBuffer run;
+        try {
+            run = new SpartieTableScanner(source, lineStart, lineEnd + offsetDelta, line, symbols).scanCompact();
+        } catch (SpartieTableScanner.ScanError error) {
+            tokens = null;
+            throw error;
+        }
+        tokens.replace(from, to, run, offsetDelta, lineDelta);
+
+        return tokens;
+    }
+
+    private CompactTokenBuffer scanAll() {
+        return new SpartieTableScanner(source, 0, source.length(), 1, symbols).scanCompact();
+    }
+
+    // Line number of an offset at the start of a line, counted from the closest token before it
+    private int lineOf(int offset) {
+        int before = tokens.tokenAt(offset) - 1;
+        if (before < 0) {
+            return 1 + countNewlines(source, 0, offset);
+        }
+        return tokens.line(before) + countNewlines(source, tokens.start(before), offset);
+    }
+
+    private static int countNewlines(CharSequence text, int start, int end) {
+        int newlines = 0;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '\n') {
+                newlines++;
+            }
+        }
+        return newlines;
+    }
+}
@@ -0,0 +1,419 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compiles a whole program to the static run() method of a hidden JVM class, so HotSpot's JIT
+// optimizes it like any Java code. Every variable becomes a JVM local and numbers stay unboxed
+// doubles.
+//
+// Only programs whose types are known at compile time are compiled: every variable keeps the type
+// of its initializer (number, boolean or string), and every operator is applied to operands the
+// tree walker would accept, so nothing can fail at run time. Anything else (null, a possible type
+// error, a variable read or assigned before its declaration has run, a program too large for
+// HotSpot to compile) makes compile() return null before anything has run, and the caller runs
+// the program on SpartieInterpreter instead.
+public class JvmCompiler {
+    // HotSpot does not JIT compile methods over 8000 bytes of bytecode (DontCompileHugeMethods),
+    // so a larger program would run slower here than on the tree walker
+    private static final int HUGE_METHOD_LIMIT = 8000;
+
+    private static final String CLASS_NAME = "SpartieProgram";
+    private static final String SELF = "JvmCompiler";
+
+    private enum Type {
+        NUMBER, BOOLEAN, STRING;
+
+        int slots() {
+            return this == NUMBER ? 2 : 1;
+        }
+    }
+
+    // A variable declaration: its type and its JVM local
+    private record Variable(Type type, int local) {
+    }
+
+    // Thrown as soon as the program leaves the compilable subset
+    private static class Unsupported extends RuntimeException {
+        Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final ClassFileWriter writer = new ClassFileWriter(CLASS_NAME);
+    private final ClassFileWriter.Code code = new ClassFileWriter.Code();
+
+    // The declaration each resolved slot currently refers to, globals and the frames the Resolver
+    // counts depth through, innermost last. A slot is null until its declaration is compiled.
+    private Variable[] globals;
+    private final List<Variable[]> frames = new ArrayList<>();
+
+    private JvmCompiler() {
+    }
+
+    // The program as a Runnable, or null if it has to run on the tree walker
+    public static Runnable compile(List<Statement> statements) {
+        JvmCompiler compiler = new JvmCompiler();
+        compiler.globals = new Variable[Resolver.resolve(statements)];
+        byte[] classFile;
+        try {
+            for (Statement statement : statements) {
+                compiler.statement(statement);
+            }
+            compiler.code.op(ClassFileWriter.RETURN, 0);
+            if (compiler.code.size() > HUGE_METHOD_LIMIT) {
+                return null;
+            }
+            compiler.writer.addStaticMethod("run", "()V", compiler.code);
+            classFile = compiler.writer.toByteArray();
+        } catch (Unsupported | ClassFileWriter.TooLargeException e) {
+            return null;
+        }
+
+        MethodHandle run;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(classFile, true);
+            run = lookup.findStatic(lookup.lookupClass(), "run", MethodType.methodType(void.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Generated class did not load", e);
+        }
+        return () -> {
+            try {
+                run.invokeExact();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    // String + number and number + string, formatted like Operations.binary
+    static String concat(String left, double right) {
+        return left.concat(NumberFormatter.fixed2(right));
+    }
+
+    static String concat(double left, String right) {
+        return NumberFormatter.fixed2(left).concat(right);
+    }
+
+    private void statement(Statement statement) {
+        switch (statement) {
+            case Statement.PrintStatement printStatement -> {
+                code.op(ClassFileWriter.GETSTATIC,
+                        writer.fieldRef("java/lang/System", "out", "Ljava/io/PrintStream;"), 1);
+                Type type = expression(printStatement.expression);
+                toText(type);
+                code.op(ClassFileWriter.INVOKEVIRTUAL,
+                        writer.methodRef("java/io/PrintStream", "println", "(Ljava/lang/String;)V"), -2);
+            }
+            case Statement.ExpressionStatement expressionStatement ->
+                    pop(expression(expressionStatement.expression));
+            case Statement.VariableStatement variableStatement -> {
+                if (variableStatement.initializer == null) {
+                    throw new Unsupported();
+                }
+                Type type = expression(variableStatement.initializer);
+                Variable variable = new Variable(type, code.allocateLocal(type.slots()));
+                store(variable);
+                if (variableStatement.depth == Resolver.GLOBAL) {
+                    globals[variableStatement.slot] = variable;
+                } else {
+                    frames.get(frames.size() - 1)[variableStatement.slot] = variable;
+                }
+            }
+            case Statement.BlockStatement blockStatement -> {
+                if (blockStatement.slots > 0) {
+                    frames.add(new Variable[blockStatement.slots]);
+                }
+                for (Statement inner : blockStatement.statements) {
+                    statement(inner);
+                }
+                if (blockStatement.slots > 0) {
+                    frames.remove(frames.size() - 1);
+                }
+            }
+            case Statement.IfStatement ifStatement -> {
+                ClassFileWriter.Label elseBranch = new ClassFileWriter.Label();
+                condition(ifStatement.condition);
+                code.jump(ClassFileWriter.IFEQ, elseBranch, -1);
+                statement(ifStatement.thenBranch);
+                if (ifStatement.elseBranch == null) {
+                    code.place(elseBranch);
+                } else {
+                    ClassFileWriter.Label end = new ClassFileWriter.Label();
+                    code.jump(ClassFileWriter.GOTO, end, 0);
+                    code.place(elseBranch);
+                    statement(ifStatement.elseBranch);
+                    code.place(end);
+                }
+            }
+            case Statement.WhileStatement whileStatement -> {
+                ClassFileWriter.Label start = new ClassFileWriter.Label();
+                ClassFileWriter.Label end = new ClassFileWriter.Label();
+                code.place(start);
+                condition(whileStatement.condition);
+                code.jump(ClassFileWriter.IFEQ, end, -1);
+                statement(whileStatement.body);
+                code.jump(ClassFileWriter.GOTO, start, 0);
+                code.place(end);
+            }
+            case Statement.ForStatement forStatement -> {
+                if (forStatement.slots > 0) {
+                    frames.add(new Variable[forStatement.slots]);
+                }
+                statement(forStatement.initializer);
+                ClassFileWriter.Label start = new ClassFileWriter.Label();
+                ClassFileWriter.Label end = new ClassFileWriter.Label();
+                code.place(start);
+                condition(forStatement.condition);
+                code.jump(ClassFileWriter.IFEQ, end, -1);
+                statement(forStatement.body);
+                if (forStatement.increment != null) {
+                    pop(expression(forStatement.increment));
+                }
+                code.jump(ClassFileWriter.GOTO, start, 0);
+                code.place(end);
+                if (forStatement.slots > 0) {
+                    frames.remove(frames.size() - 1);
+                }
+            }
+            case null -> {
+            }
+            default -> throw new Unsupported();
+        }
+    }
+
+    // Leaves the value on the stack and returns its type
+    private Type expression(Expression expression) {
+        switch (expression) {
+            case Expression.LiteralExpression literalExpression -> {
+                Object value = literalExpression.literalValue;
+                if (value instanceof Double number) {
+                    code.op(ClassFileWriter.LDC2_W, writer.doubleConstant(number), 2);
+                    return Type.NUMBER;
+                } else if (value instanceof Boolean bool) {
+                    code.op(bool ? ClassFileWriter.ICONST_1 : ClassFileWriter.ICONST_0, 1);
+                    return Type.BOOLEAN;
+                } else if (value instanceof String string) {
+                    code.constant(writer.string(string), 1);
+                    return Type.STRING;
+                }
+                throw new Unsupported();
+            }
+            case Expression.VariableExpression variableExpression -> {
+                Variable variable = variable(variableExpression.depth, variableExpression.slot);
+                load(variable);
+                return variable.type();
+            }
+            case Expression.AssignmentExpression assignmentExpression -> {
+                Variable variable = variable(assignmentExpression.depth, assignmentExpression.slot);
+                if (expression(assignmentExpression.value) != variable.type()) {
+                    throw new Unsupported();
+                }
+                code.op(variable.type() == Type.NUMBER ? ClassFileWriter.DUP2 : ClassFileWriter.DUP,
+                        variable.type().slots());
+                store(variable);
+                return variable.type();
+            }
+            case Expression.ParenthesesExpression parenthesesExpression -> {
+                return expression(parenthesesExpression.expression);
+            }
+            case Expression.UnaryExpression unaryExpression -> {
+                Type type = expression(unaryExpression.right);
+                if (unaryExpression.operator.type == TokenType.NOT) {
+                    if (type == Type.BOOLEAN) {
+                        code.op(ClassFileWriter.ICONST_1, 1);
+                        code.op(ClassFileWriter.IXOR, -1);
+                    } else {
+                        // Numbers and strings are always true
+                        pop(type);
+                        code.op(ClassFileWriter.ICONST_0, 1);
+                    }
+                    return Type.BOOLEAN;
+                }
+                if (type != Type.NUMBER) {
+                    throw new Unsupported();
+                }
+                code.op(ClassFileWriter.DNEG, 0);
+                return Type.NUMBER;
+            }
+            case Expression.LogicalExpression logicalExpression -> {
+                return logical(logicalExpression);
+            }
+            case Expression.BinaryExpression binaryExpression -> {
+                return binary(binaryExpression);
+            }
+            case null, default -> throw new Unsupported();
+        }
+    }
+
+    // | and & give back one of their operands, so both have to have the same type
+    private Type logical(Expression.LogicalExpression expression) {
+        boolean or = expression.operator.type == TokenType.OR;
+        Type left = expression(expression.left);
+        if (left != Type.BOOLEAN) {
+            // Always true: | keeps the left value and & moves on to the right one
+            if (or) {
+                return left;
+            }
+            pop(left);
+            return expression(expression.right);
+        }
+
+        ClassFileWriter.Label end = new ClassFileWriter.Label();
+        code.op(ClassFileWriter.DUP, 1);
+        code.jump(or ? ClassFileWriter.IFNE : ClassFileWriter.IFEQ, end, -1);
+        code.op(ClassFileWriter.POP, -1);
+        if (expression(expression.right) != Type.BOOLEAN) {
+            throw new Unsupported();
+        }
+        code.place(end);
+        return Type.BOOLEAN;
+    }
+
+    private Type binary(Expression.BinaryExpression expression) {
+        TokenType operator = expression.operator.type;
+        Type left = expression(expression.left);
+        Type right = expression(expression.right);
+
+        if (operator == TokenType.EQUIVALENT || operator == TokenType.NOT_EQUAL) {
+            equality(left, right, operator == TokenType.EQUIVALENT);
+            return Type.BOOLEAN;
+        }
+
+        if (operator == TokenType.ADD && (left == Type.STRING || right == Type.STRING)) {
+            if (left == Type.STRING && right == Type.STRING) {
+                code.op(ClassFileWriter.INVOKEVIRTUAL,
+                        writer.methodRef("java/lang/String", "concat", "(Ljava/lang/String;)Ljava/lang/String;"), -1);
+            } else if (left == Type.STRING && right == Type.NUMBER) {
+                code.op(ClassFileWriter.INVOKESTATIC,
+                        writer.methodRef(SELF, "concat", "(Ljava/lang/String;D)Ljava/lang/String;"), -2);
+            } else if (left == Type.NUMBER && right == Type.STRING) {
+                code.op(ClassFileWriter.INVOKESTATIC,
+                        writer.methodRef(SELF, "concat", "(DLjava/lang/String;)Ljava/lang/String;"), -2);
+            } else {
+                throw new Unsupported();
+            }
+            return Type.STRING;
+        }
+
+        if (left != Type.NUMBER || right != Type.NUMBER) {
+            throw new Unsupported();
+        }
+        switch (operator) {
+            // The tree walker adds for subtraction too
+            case ADD, SUBTRACT -> code.op(ClassFileWriter.DADD, -2);
+            case MULTIPLY -> code.op(ClassFileWriter.DMUL, -2);
+            case DIVIDE -> code.op(ClassFileWriter.DDIV, -2);
+            // Compare, then jump to false when the comparison fails. NaN compares false.
+            case LESS_THAN -> comparison(ClassFileWriter.DCMPG, ClassFileWriter.IFGE);
+            case LESS_EQUAL -> comparison(ClassFileWriter.DCMPG, ClassFileWriter.IFGT);
+            case GREATER_THAN -> comparison(ClassFileWriter.DCMPL, ClassFileWriter.IFLE);
+            case GREATER_EQUAL -> comparison(ClassFileWriter.DCMPL, ClassFileWriter.IFLT);
+            default -> throw new Unsupported();
+        }
+        return switch (operator) {
+            case ADD, SUBTRACT, MULTIPLY, DIVIDE -> Type.NUMBER;
+            default -> Type.BOOLEAN;
+        };
+    }
+
+    private void comparison(int compare, int jumpIfFalse) {
+        code.op(compare, -3);
+        booleanFromJump(jumpIfFalse, -1);
+    }
+
+    // Same results as Operations.isEquivalent: values of different types are never equal, and
+    // numbers compare like Double.equals
+    private void equality(Type left, Type right, boolean equal) {
+        if (left != right) {
+            pop(right);
+            pop(left);
+            code.op(equal ? ClassFileWriter.ICONST_0 : ClassFileWriter.ICONST_1, 1);
+            return;
+        }
+        switch (left) {
+            case NUMBER -> {
+                code.op(ClassFileWriter.INVOKESTATIC, writer.methodRef("java/lang/Double", "compare", "(DD)I"), -3);
+                booleanFromJump(equal ? ClassFileWriter.IFNE : ClassFileWriter.IFEQ, -1);
+            }
+            case BOOLEAN -> booleanFromJump(equal ? ClassFileWriter.IF_ICMPNE : ClassFileWriter.IF_ICMPEQ, -2);
+            case STRING -> {
+                code.op(ClassFileWriter.INVOKEVIRTUAL,
+                        writer.methodRef("java/lang/String", "equals", "(Ljava/lang/Object;)Z"), -1);
+                if (!equal) {
+                    code.op(ClassFileWriter.ICONST_1, 1);
+                    code.op(ClassFileWriter.IXOR, -1);
+                }
+            }
+        }
+    }
+
+    // Pushes false if the jump is taken and true otherwise
+    private void booleanFromJump(int jumpIfFalse, int stackDelta) {
+        ClassFileWriter.Label isFalse = new ClassFileWriter.Label();
+        ClassFileWriter.Label end = new ClassFileWriter.Label();
+        code.jump(jumpIfFalse, isFalse, stackDelta);
+        code.op(ClassFileWriter.ICONST_1, 1);
+        code.jump(ClassFileWriter.GOTO, end, 0);
+        code.place(isFalse);
+        code.op(ClassFileWriter.ICONST_0, 1);
+        code.place(end);
+    }
+
+    // Leaves Operations.isTrue of the value on the stack as an int
+    private void condition(Expression expression) {
+        Type type = expression(expression);
+        if (type != Type.BOOLEAN) {
+            pop(type);
+            code.op(ClassFileWriter.ICONST_1, 1);
+        }
+    }
+
+    // Replaces the value with the text print shows for it
+    private void toText(Type type) {
+        switch (type) {
+            case NUMBER -> code.op(ClassFileWriter.INVOKESTATIC,
+                    writer.methodRef("java/lang/Double", "toString", "(D)Ljava/lang/String;"), -1);
+            case BOOLEAN -> code.op(ClassFileWriter.INVOKESTATIC,
+                    writer.methodRef("java/lang/String", "valueOf", "(Z)Ljava/lang/String;"), 0);
+            case STRING -> {
+            }
+        }
+    }
+
+    // A variable whose declaration has not been compiled yet may not have run at that point
+    private Variable variable(int depth, int slot) {
+        Variable variable = depth == Resolver.GLOBAL ? globals[slot] : frames.get(frames.size() - 1 - depth)[slot];
+        if (variable == null) {
+            throw new Unsupported();
+        }
+        return variable;
+    }
+
+    private void load(Variable variable) {
+        switch (variable.type()) {
+            case NUMBER -> code.local(ClassFileWriter.DLOAD, variable.local(), 2);
+            case BOOLEAN -> code.local(ClassFileWriter.ILOAD, variable.local(), 1);
+            case STRING -> code.local(ClassFileWriter.ALOAD, variable.local(), 1);
+        }
+    }
+
+    private void store(Variable variable) {
+        switch (variable.type()) {
+            case NUMBER -> code.local(ClassFileWriter.DSTORE, variable.local(), -2);
+            case BOOLEAN -> code.local(ClassFileWriter.ISTORE, variable.local(), -1);
+            case STRING -> code.local(ClassFileWriter.ASTORE, variable.local(), -1);
+        }
+    }
+
+    private void pop(Type type) {
+        code.op(type == Type.NUMBER ? ClassFileWriter.POP2 : ClassFileWriter.POP, -type.slots());
+    }
+}
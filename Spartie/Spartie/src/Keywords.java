@@ -0,0 +1,58 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+// Reserved word recognition straight from the source, without cutting out a String first.
+// Dispatches on length and first character and then compares the remaining characters.
+public class Keywords {
+    // Returns the keyword type for source[start, end), or IDENTIFIER when it is not reserved
+    public static TokenType lookup(CharSequence source, int start, int end) {
+        switch (end - start) {
+            case 2:
+                return matches(source, start, "if") ? TokenType.IF : TokenType.IDENTIFIER;
+            case 3:
+                switch (source.charAt(start)) {
+                    case 'f':
+                        return matches(source, start, "for") ? TokenType.FOR
+                                : matches(source, start, "fun") ? TokenType.FUN : TokenType.IDENTIFIER;
+                    case 'v':
+                        return matches(source, start, "var") ? TokenType.VAR : TokenType.IDENTIFIER;
+                }
+                return TokenType.IDENTIFIER;
+            case 4:
+                switch (source.charAt(start)) {
+                    case 'e':
+                        return matches(source, start, "else") ? TokenType.ELSE : TokenType.IDENTIFIER;
+                    case 't':
+                        return matches(source, start, "true") ? TokenType.TRUE : TokenType.IDENTIFIER;
+                    case 'n':
+                        return matches(source, start, "null") ? TokenType.NULL : TokenType.IDENTIFIER;
+                }
+                return TokenType.IDENTIFIER;
+            case 5:
+                switch (source.charAt(start)) {
+                    case 'w':
+                        return matches(source, start, "while") ? TokenType.WHILE : TokenType.IDENTIFIER;
+                    case 'f':
+                        return matches(source, start, "false") ? TokenType.FALSE : TokenType.IDENTIFIER;
+                    case 'p':
+                        return matches(source, start, "print") ? TokenType.PRINT : TokenType.IDENTIFIER;
+                }
+                return TokenType.IDENTIFIER;
+            case 6:
+                return matches(source, start, "return") ? TokenType.RETURN : TokenType.IDENTIFIER;
+            default:
+                return TokenType.IDENTIFIER;
+        }
+    }
+
+    // The caller has already checked the length
+    private static boolean matches(CharSequence source, int start, String keyword) {
+        for (int i = 0; i < keyword.length(); i++) {
+            if (source.charAt(start + i) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
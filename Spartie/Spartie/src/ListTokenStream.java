@@ -0,0 +1,33 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.List;
+
+// Token stream over an already scanned list of tokens ending in EOF
+public class ListTokenStream implements TokenStream {
+    private final List<Token> tokens;
+    private int current = 0;
+
+    public ListTokenStream(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    @Override
+    public Token peek(int distance) {
+        // Everything past the end reads as the EOF token
+        return tokens.get(Math.min(current + distance, tokens.size() - 1));
+    }
+
+    @Override
+    public Token previous() {
+        return tokens.get(current - 1);
+    }
+
+    @Override
+    public Token advance() {
+        Token token = peek(0);
+        current++;
+        return token;
+    }
+}
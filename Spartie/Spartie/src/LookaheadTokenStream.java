@@ -0,0 +1,73 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.function.Supplier;
+
+// Token stream that pulls tokens from a scanner on demand. Only the previous token, the current
+// token and the lookahead window are kept, so memory does not grow with the size of the source.
+public class LookaheadTokenStream implements TokenStream {
+    public static final int DEFAULT_LOOKAHEAD = 1;
+
+    private final Supplier<Token> source;
+    private final int lookahead;
+
+    // Ring buffer indexed by absolute token position
+    private final Token[] buffer;
+    private int current = 0;
+    private int filled = 0;
+    private Token eof = null;
+
+    public LookaheadTokenStream(Supplier<Token> source) {
+        this(source, DEFAULT_LOOKAHEAD);
+    }
+
+    public LookaheadTokenStream(Supplier<Token> source, int lookahead) {
+        if (lookahead < 0) {
+            throw new IllegalArgumentException("Lookahead must not be negative: " + lookahead);
+        }
+        this.source = source;
+        this.lookahead = lookahead;
+        // Previous token, current token and the lookahead window
+        this.buffer = new Token[lookahead + 2];
+    }
+
+    @Override
+    public Token peek(int distance) {
+        if (distance < 0 || distance > lookahead) {
+            throw new IllegalArgumentException("Lookahead of " + distance + " exceeds " + lookahead);
+        }
+        fill(current + distance);
+        return buffer[(current + distance) % buffer.length];
+    }
+
+    @Override
+    public Token previous() {
+        if (current == 0) {
+            throw new IllegalStateException("No token has been consumed yet");
+        }
+        return buffer[(current - 1) % buffer.length];
+    }
+
+    @Override
+    public Token advance() {
+        Token token = peek(0);
+        current++;
+        return token;
+    }
+
+    private void fill(int position) {
+        while (filled <= position) {
+            Token token = eof;
+            if (token == null) {
+                token = source.get();
+                if (token.type == TokenType.EOF) {
+                    // The scanner is done, keep answering with its EOF token
+                    eof = token;
+                }
+            }
+            buffer[filled % buffer.length] = token;
+            filled++;
+        }
+    }
+}
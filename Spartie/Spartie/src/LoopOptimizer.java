@@ -0,0 +1,601 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Optimization pass for while and for loops, run after ConstantFolder. It rewrites the tree in
+// place and puts the compiler temporaries it needs in a block around the loop. Temporary names
+// start with $, which the scanner never produces, so they cannot clash with program variables.
+//
+// Loop-invariant code motion: an expression without assignments whose variables are not assigned
+// or declared anywhere in the loop has the same value on every iteration. When the loop condition
+// evaluates it before anything that could fail, it is computed once before the loop instead, so
+// it is evaluated at the same point as before. Anywhere else in the loop it may not be evaluated at
+// all, or only after something that reports an error, so it is cached instead: its temporary starts
+// out null and the expression becomes ($t | ($t = expression)), which computes it the first time it
+// is reached and reads it afterwards (a false or null value is simply computed again).
+//
+// Strength reduction: in a loop whose induction variable starts at an integral literal and only
+// changes by i = i + c at the end of each iteration, i * k for a positive integral literal k is
+// kept in a temporary that starts at i0 * k and grows by c * k. i is always a whole number, so
+// both forms give identical doubles, down to the sign of zero, for as long as the values stay
+// below 2^53; the limits on i0, c and k put that more than 2^40 iterations away.
+//
+// A function call can assign any variable it can see, so loops that call functions are left as
+// they are. Loops inside function bodies are optimized like any other.
+public class LoopOptimizer {
+    // Bounds on strength reduction operands, see above
+    private static final double MAX_START = 1L << 31;
+    private static final double MAX_FACTOR = 64;
+
+    private final boolean report;
+    private int temporaries;
+
+    // The loop being optimized: names assigned or declared in it, whether it calls a function,
+    // the declarations of its temporaries, and whether the expression being visited would still
+    // be evaluated before anything that can fail
+    private Set<String> variant;
+    private boolean calls;
+    private List<Statement> preheader;
+    private List<String> notes;
+    private boolean eager;
+
+    private LoopOptimizer(boolean report) {
+        this.report = report;
+    }
+
+    // Optimizes every loop in the program, printing what happened to each one on System.err when
+    // report is set
+    public static List<Statement> optimize(List<Statement> statements, boolean report) {
+        return new LoopOptimizer(report).statements(statements);
+    }
+
+    private List<Statement> statements(List<Statement> statements) {
+        List<Statement> optimized = new ArrayList<>(statements.size());
+        for (Statement statement : statements) {
+            optimized.add(statement(statement, optimized));
+        }
+        return optimized;
+    }
+
+    // before holds the statements that run right before this one in the same block
+    private Statement statement(Statement statement, List<Statement> before) {
+        switch (statement) {
+            case Statement.BlockStatement blockStatement ->
+                    blockStatement.statements = statements(blockStatement.statements);
+            case Statement.IfStatement ifStatement -> {
+                ifStatement.thenBranch = statement(ifStatement.thenBranch, List.of());
+                ifStatement.elseBranch = statement(ifStatement.elseBranch, List.of());
+            }
+            case Statement.WhileStatement whileStatement -> {
+                // Inner loops first, so their temporaries can be hoisted further out
+                whileStatement.body = statement(whileStatement.body, List.of());
+                return whileLoop(whileStatement, before);
+            }
+            case Statement.ForStatement forStatement -> {
+                forStatement.body = statement(forStatement.body, List.of());
+                return forLoop(forStatement);
+            }
+            case Statement.FunctionStatement functionStatement ->
+                    functionStatement.body = statements(functionStatement.body);
+            case null, default -> {
+            }
+        }
+        return statement;
+    }
+
+    private Statement whileLoop(Statement.WhileStatement loop, List<Statement> before) {
+        begin();
+        variables(loop.condition);
+        variables(loop.body);
+        if (calls) {
+            return end(loop, line(loop.condition));
+        }
+        variant.clear();
+
+        // Induction variable stepped by the last statement in the body and set by an earlier
+        // statement in the enclosing block, with nothing in between changing it
+        Induction induction = null;
+        if (loop.body instanceof Statement.BlockStatement body && !body.statements.isEmpty()) {
+            Statement last = body.statements.get(body.statements.size() - 1);
+            Step step = step(last);
+            Start start = null;
+            for (int i = before.size() - 1; step != null && i >= 0 && start == null; i--) {
+                start = start(before.get(i));
+                if (start != null && !start.name.equals(step.name)) {
+                    start = null;
+                }
+                if (start == null) {
+                    variables(before.get(i));
+                    if (calls || variant.contains(step.name)) {
+                        break;
+                    }
+                }
+            }
+            induction = Induction.of(start, step);
+            if (induction != null) {
+                variant.clear();
+                variables(loop.condition);
+                for (Statement inner : body.statements.subList(0, body.statements.size() - 1)) {
+                    variables(inner);
+                }
+                if (variant.contains(induction.name)) {
+                    induction = null;
+                } else {
+                    loop.condition = reduce(loop.condition, induction);
+                    for (int i = 0; i < body.statements.size() - 1; i++) {
+                        body.statements.set(i, reduce(body.statements.get(i), induction));
+                    }
+                    List<Statement> statements = new ArrayList<>(body.statements);
+                    statements.addAll(induction.updates);
+                    body.statements = statements;
+                }
+            }
+        }
+
+        variant.clear();
+        variables(loop.condition);
+        variables(loop.body);
+        eager = true;
+        loop.condition = hoist(loop.condition);
+        eager = false;
+        loop.body = hoist(loop.body);
+
+        return end(loop, line(loop.condition));
+    }
+
+    private Statement forLoop(Statement.ForStatement loop) {
+        begin();
+        variables(loop.initializer);
+        variables(loop.condition);
+        variables(loop.body);
+        variables(loop.increment);
+        if (calls) {
+            return end(loop, line(loop.condition));
+        }
+        variant.clear();
+
+        Induction induction = null;
+        if (loop.increment != null) {
+            induction = Induction.of(start(loop.initializer), step(new Statement.ExpressionStatement(loop.increment)));
+        }
+        if (induction != null) {
+            variables(loop.condition);
+            variables(loop.body);
+            if (variant.contains(induction.name)) {
+                induction = null;
+            } else {
+                loop.condition = reduce(loop.condition, induction);
+                loop.body = reduce(loop.body, induction);
+                if (!induction.updates.isEmpty()) {
+                    // The increment does not read the temporaries, so they can step before it
+                    List<Statement> body = new ArrayList<>();
+                    body.add(loop.body);
+                    body.addAll(induction.updates);
+                    loop.body = new Statement.BlockStatement(body);
+                }
+            }
+        }
+
+        variant.clear();
+        variables(loop.initializer);
+        variables(loop.condition);
+        variables(loop.body);
+        variables(loop.increment);
+        // The initializer runs before the condition, so it must not be able to fail either
+        eager = loop.initializer == null || loop.initializer instanceof Statement.VariableStatement variable
+                && isSafe(variable.initializer);
+        loop.condition = hoist(loop.condition);
+        eager = false;
+        loop.body = hoist(loop.body);
+        loop.increment = hoist(loop.increment);
+
+        return end(loop, line(loop.condition));
+    }
+
+    private void begin() {
+        variant = new HashSet<>();
+        calls = false;
+        preheader = new ArrayList<>();
+        notes = new ArrayList<>();
+        eager = false;
+    }
+
+    // The loop, inside a block declaring its temporaries if it has any
+    private Statement end(Statement loop, int line) {
+        if (report) {
+            String where = line > 0 ? "Loop on line " + line : "Loop";
+            if (calls) {
+                System.err.println(where + ": nothing hoisted, it calls a function");
+            } else if (notes.isEmpty()) {
+                System.err.println(where + ": nothing hoisted");
+            }
+            for (String note : notes) {
+                System.err.println(where + ": " + note);
+            }
+        }
+        if (preheader.isEmpty()) {
+            return loop;
+        }
+        preheader.add(loop);
+        return new Statement.BlockStatement(preheader);
+    }
+
+    private String temporary(String prefix) {
+        return prefix + temporaries++;
+    }
+
+    // Loop-invariant code motion
+
+    private Statement hoist(Statement statement) {
+        switch (statement) {
+            case Statement.PrintStatement printStatement -> printStatement.expression = hoist(printStatement.expression);
+            case Statement.ExpressionStatement expressionStatement ->
+                    expressionStatement.expression = hoist(expressionStatement.expression);
+            case Statement.VariableStatement variableStatement ->
+                    variableStatement.initializer = hoist(variableStatement.initializer);
+            case Statement.BlockStatement blockStatement -> blockStatement.statements.replaceAll(this::hoist);
+            case Statement.IfStatement ifStatement -> {
+                ifStatement.condition = hoist(ifStatement.condition);
+                ifStatement.thenBranch = hoist(ifStatement.thenBranch);
+                ifStatement.elseBranch = hoist(ifStatement.elseBranch);
+            }
+            case Statement.WhileStatement whileStatement -> {
+                whileStatement.condition = hoist(whileStatement.condition);
+                whileStatement.body = hoist(whileStatement.body);
+            }
+            case Statement.ForStatement forStatement -> {
+                forStatement.initializer = hoist(forStatement.initializer);
+                forStatement.condition = hoist(forStatement.condition);
+                forStatement.body = hoist(forStatement.body);
+                forStatement.increment = hoist(forStatement.increment);
+            }
+            case Statement.ReturnStatement returnStatement -> returnStatement.value = hoist(returnStatement.value);
+            case null, default -> {
+            }
+        }
+        return statement;
+    }
+
+    // Visits operands in evaluation order, so eager turns false at the first operator that could
+    // fail or assign
+    private Expression hoist(Expression expression) {
+        if (expression == null) {
+            return null;
+        }
+        if (isInvariant(expression) && isWorthHoisting(expression)) {
+            String name = temporary("$t");
+            int line = line(expression);
+            String text = AstPrinter.print(expression);
+            if (eager) {
+                preheader.add(new Statement.VariableStatement(identifier(name, line), expression));
+                notes.add("hoisted " + text + " into " + name);
+                return new Expression.VariableExpression(identifier(name, line));
+            }
+            preheader.add(new Statement.VariableStatement(identifier(name, line), null));
+            notes.add("cached " + text + " in " + name + " at first use");
+            return new Expression.LogicalExpression(new Expression.VariableExpression(identifier(name, line)),
+                    new Token(TokenType.OR, "|", line),
+                    new Expression.AssignmentExpression(identifier(name, line), expression));
+        }
+
+        switch (expression) {
+            case Expression.ParenthesesExpression parenthesesExpression ->
+                    parenthesesExpression.expression = hoist(parenthesesExpression.expression);
+            case Expression.AssignmentExpression assignmentExpression -> {
+                assignmentExpression.value = hoist(assignmentExpression.value);
+                eager = false;
+            }
+            case Expression.LogicalExpression logicalExpression -> {
+                logicalExpression.left = hoist(logicalExpression.left);
+                // The right operand only runs when the left one does not short-circuit
+                eager = false;
+                logicalExpression.right = hoist(logicalExpression.right);
+            }
+            case Expression.BinaryExpression binaryExpression -> {
+                binaryExpression.left = hoist(binaryExpression.left);
+                binaryExpression.right = hoist(binaryExpression.right);
+                eager = false;
+            }
+            case Expression.UnaryExpression unaryExpression -> {
+                unaryExpression.right = hoist(unaryExpression.right);
+                eager = false;
+            }
+            default -> {
+            }
+        }
+        return expression;
+    }
+
+    // No assignments and no variables the loop changes
+    private boolean isInvariant(Expression expression) {
+        return switch (expression) {
+            case null -> true;
+            case Expression.VariableExpression variableExpression -> !variant.contains(variableExpression.name.text);
+            case Expression.LiteralExpression literalExpression -> true;
+            case Expression.ParenthesesExpression parenthesesExpression ->
+                    isInvariant(parenthesesExpression.expression);
+            case Expression.UnaryExpression unaryExpression -> isInvariant(unaryExpression.right);
+            case Expression.BinaryExpression binaryExpression ->
+                    isInvariant(binaryExpression.left) && isInvariant(binaryExpression.right);
+            case Expression.LogicalExpression logicalExpression ->
+                    isInvariant(logicalExpression.left) && isInvariant(logicalExpression.right);
+            default -> false;
+        };
+    }
+
+    // An operator applied to at least one variable; anything smaller costs as much as the temporary
+    private static boolean isWorthHoisting(Expression expression) {
+        return !(expression instanceof Expression.VariableExpression)
+                && !(expression instanceof Expression.LiteralExpression)
+                && !(expression instanceof Expression.ParenthesesExpression parentheses
+                        && !isWorthHoisting(parentheses.expression))
+                && readsVariable(expression);
+    }
+
+    private static boolean readsVariable(Expression expression) {
+        return switch (expression) {
+            case Expression.VariableExpression variableExpression -> true;
+            case Expression.ParenthesesExpression parenthesesExpression -> readsVariable(parenthesesExpression.expression);
+            case Expression.UnaryExpression unaryExpression -> readsVariable(unaryExpression.right);
+            case Expression.BinaryExpression binaryExpression ->
+                    readsVariable(binaryExpression.left) || readsVariable(binaryExpression.right);
+            case Expression.LogicalExpression logicalExpression ->
+                    readsVariable(logicalExpression.left) || readsVariable(logicalExpression.right);
+            case null, default -> false;
+        };
+    }
+
+    // Evaluating it can neither fail nor change anything
+    private static boolean isSafe(Expression expression) {
+        return expression == null || expression instanceof Expression.LiteralExpression
+                || expression instanceof Expression.VariableExpression;
+    }
+
+    // Adds every name the statement assigns or declares to variant
+    private void variables(Statement statement) {
+        switch (statement) {
+            case Statement.PrintStatement printStatement -> variables(printStatement.expression);
+            case Statement.ExpressionStatement expressionStatement -> variables(expressionStatement.expression);
+            case Statement.VariableStatement variableStatement -> {
+                variant.add(variableStatement.name.text);
+                variables(variableStatement.initializer);
+            }
+            case Statement.BlockStatement blockStatement -> {
+                for (Statement inner : blockStatement.statements) {
+                    variables(inner);
+                }
+            }
+            case Statement.IfStatement ifStatement -> {
+                variables(ifStatement.condition);
+                variables(ifStatement.thenBranch);
+                variables(ifStatement.elseBranch);
+            }
+            case Statement.WhileStatement whileStatement -> {
+                variables(whileStatement.condition);
+                variables(whileStatement.body);
+            }
+            case Statement.ForStatement forStatement -> {
+                variables(forStatement.initializer);
+                variables(forStatement.condition);
+                variables(forStatement.body);
+                variables(forStatement.increment);
+            }
+            // The body only runs when the function is called, which the loop would have to do
+            case Statement.FunctionStatement functionStatement -> variant.add(functionStatement.name.text);
+            case Statement.ReturnStatement returnStatement -> variables(returnStatement.value);
+            case null, default -> {
+            }
+        }
+    }
+
+    private void variables(Expression expression) {
+        switch (expression) {
+            case Expression.AssignmentExpression assignmentExpression -> {
+                variant.add(assignmentExpression.name.text);
+                variables(assignmentExpression.value);
+            }
+            case Expression.ParenthesesExpression parenthesesExpression -> variables(parenthesesExpression.expression);
+            case Expression.UnaryExpression unaryExpression -> variables(unaryExpression.right);
+            case Expression.BinaryExpression binaryExpression -> {
+                variables(binaryExpression.left);
+                variables(binaryExpression.right);
+            }
+            case Expression.LogicalExpression logicalExpression -> {
+                variables(logicalExpression.left);
+                variables(logicalExpression.right);
+            }
+            case Expression.CallExpression callExpression -> calls = true;
+            case null, default -> {
+            }
+        }
+    }
+
+    // Strength reduction
+
+    // An induction variable, its start and step, and the temporaries that replace its multiples
+    private static class Induction {
+        final String name;
+        final double start;
+        final double step;
+        final List<Statement> updates = new ArrayList<>();
+
+        private Induction(String name, double start, double step) {
+            this.name = name;
+            this.start = start;
+            this.step = step;
+        }
+
+        // An induction variable when the start and step assign the same variable
+        static Induction of(Start start, Step step) {
+            if (start == null || step == null || !start.name.equals(step.name)) {
+                return null;
+            }
+            return new Induction(start.name, start.value, step.value);
+        }
+    }
+
+    private record Start(String name, double value) {
+    }
+
+    private record Step(String name, double value) {
+    }
+
+    // var i = i0; or i = i0; with a whole, non-negative-zero i0
+    private static Start start(Statement statement) {
+        Token name;
+        Expression value;
+        if (statement instanceof Statement.VariableStatement variable) {
+            name = variable.name;
+            value = variable.initializer;
+        } else if (statement instanceof Statement.ExpressionStatement expressionStatement
+                && expressionStatement.expression instanceof Expression.AssignmentExpression assignment) {
+            name = assignment.name;
+            value = assignment.value;
+        } else {
+            return null;
+        }
+        Double start = wholeNumber(value, MAX_START);
+        if (start == null || Double.doubleToRawLongBits(start) == Double.doubleToRawLongBits(-0.0)) {
+            return null;
+        }
+        return new Start(name.text, start);
+    }
+
+    // i = i + c; or i = c + i; with a whole c. Subtraction adds in Spartie, so - counts as well.
+    private static Step step(Statement statement) {
+        if (!(statement instanceof Statement.ExpressionStatement expressionStatement
+                && expressionStatement.expression instanceof Expression.AssignmentExpression assignment
+                && assignment.value instanceof Expression.BinaryExpression binary
+                && (binary.operator.type == TokenType.ADD || binary.operator.type == TokenType.SUBTRACT))) {
+            return null;
+        }
+        String name = assignment.name.text;
+        Expression step;
+        if (isVariable(binary.left, name)) {
+            step = binary.right;
+        } else if (isVariable(binary.right, name)) {
+            step = binary.left;
+        } else {
+            return null;
+        }
+        Double value = wholeNumber(step, MAX_FACTOR);
+        return value == null ? null : new Step(name, value);
+    }
+
+    private static boolean isVariable(Expression expression, String name) {
+        return expression instanceof Expression.VariableExpression variable && variable.name.text.equals(name);
+    }
+
+    // The literal's value if it is a whole number no larger than limit
+    private static Double wholeNumber(Expression expression, double limit) {
+        if (expression instanceof Expression.LiteralExpression literal && literal.literalValue instanceof Double value
+                && value == Math.rint(value) && Math.abs(value) <= limit) {
+            return value;
+        }
+        return null;
+    }
+
+    private Statement reduce(Statement statement, Induction induction) {
+        switch (statement) {
+            case Statement.PrintStatement printStatement ->
+                    printStatement.expression = reduce(printStatement.expression, induction);
+            case Statement.ExpressionStatement expressionStatement ->
+                    expressionStatement.expression = reduce(expressionStatement.expression, induction);
+            case Statement.VariableStatement variableStatement ->
+                    variableStatement.initializer = reduce(variableStatement.initializer, induction);
+            case Statement.BlockStatement blockStatement ->
+                    blockStatement.statements.replaceAll(inner -> reduce(inner, induction));
+            case Statement.IfStatement ifStatement -> {
+                ifStatement.condition = reduce(ifStatement.condition, induction);
+                ifStatement.thenBranch = reduce(ifStatement.thenBranch, induction);
+                ifStatement.elseBranch = reduce(ifStatement.elseBranch, induction);
+            }
+            case Statement.WhileStatement whileStatement -> {
+                whileStatement.condition = reduce(whileStatement.condition, induction);
+                whileStatement.body = reduce(whileStatement.body, induction);
+            }
+            case Statement.ForStatement forStatement -> {
+                forStatement.initializer = reduce(forStatement.initializer, induction);
+                forStatement.condition = reduce(forStatement.condition, induction);
+                forStatement.body = reduce(forStatement.body, induction);
+                forStatement.increment = reduce(forStatement.increment, induction);
+            }
+            case Statement.ReturnStatement returnStatement ->
+                    returnStatement.value = reduce(returnStatement.value, induction);
+            case null, default -> {
+            }
+        }
+        return statement;
+    }
+
+    private Expression reduce(Expression expression, Induction induction) {
+        switch (expression) {
+            case Expression.BinaryExpression binaryExpression -> {
+                if (binaryExpression.operator.type == TokenType.MULTIPLY) {
+                    Double factor = null;
+                    if (isVariable(binaryExpression.left, induction.name)) {
+                        factor = wholeNumber(binaryExpression.right, MAX_FACTOR);
+                    } else if (isVariable(binaryExpression.right, induction.name)) {
+                        factor = wholeNumber(binaryExpression.left, MAX_FACTOR);
+                    }
+                    // A negative factor would turn i == 0 into -0.0
+                    if (factor != null && factor > 0) {
+                        return multiple(induction, factor, binaryExpression);
+                    }
+                }
+                binaryExpression.left = reduce(binaryExpression.left, induction);
+                binaryExpression.right = reduce(binaryExpression.right, induction);
+            }
+            case Expression.ParenthesesExpression parenthesesExpression ->
+                    parenthesesExpression.expression = reduce(parenthesesExpression.expression, induction);
+            case Expression.AssignmentExpression assignmentExpression ->
+                    assignmentExpression.value = reduce(assignmentExpression.value, induction);
+            case Expression.LogicalExpression logicalExpression -> {
+                logicalExpression.left = reduce(logicalExpression.left, induction);
+                logicalExpression.right = reduce(logicalExpression.right, induction);
+            }
+            case Expression.UnaryExpression unaryExpression ->
+                    unaryExpression.right = reduce(unaryExpression.right, induction);
+            case null, default -> {
+            }
+        }
+        return expression;
+    }
+
+    // A read of the temporary holding induction * factor
+    private Expression multiple(Induction induction, double factor, Expression.BinaryExpression product) {
+        int line = product.operator.line;
+        String name = temporary("$s");
+        double increment = induction.step * factor;
+        preheader.add(new Statement.VariableStatement(identifier(name, line),
+                new Expression.LiteralExpression(induction.start * factor)));
+        induction.updates.add(new Statement.ExpressionStatement(new Expression.AssignmentExpression(
+                identifier(name, line), new Expression.BinaryExpression(new Expression.VariableExpression(
+                        identifier(name, line)), new Token(TokenType.ADD, "+", line),
+                        new Expression.LiteralExpression(increment)))));
+        notes.add("replaced " + AstPrinter.print(product) + " with " + name + ", stepped by " + increment);
+        return new Expression.VariableExpression(identifier(name, line));
+    }
+
+    private static Token identifier(String name, int line) {
+        return new Token(TokenType.IDENTIFIER, name, line);
+    }
+
+    // A line the expression came from, or 0 if it has no tokens
+    private static int line(Expression expression) {
+        return switch (expression) {
+            case Expression.AssignmentExpression assignmentExpression -> assignmentExpression.name.line;
+            case Expression.VariableExpression variableExpression -> variableExpression.name.line;
+            case Expression.BinaryExpression binaryExpression -> binaryExpression.operator.line;
+            case Expression.LogicalExpression logicalExpression -> logicalExpression.operator.line;
+            case Expression.UnaryExpression unaryExpression -> unaryExpression.operator.line;
+            case Expression.ParenthesesExpression parenthesesExpression -> line(parenthesesExpression.expression);
+            case null, default -> 0;
+        };
+    }
+}
@@ -5,18 +5,53 @@
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 
 public class Main {
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.out.println("Usage: spartie [file]");
+        String filename = null;
+        boolean parallelScan = false;
+        Path cacheDirectory = null;
+        String engine = "tree";
+        boolean optimize = false;
+        boolean reportLoops = false;
+        boolean dumpAst = false;
+        for (String arg : args) {
+            if (arg.equals("--parallel-scan")) {
+                parallelScan = true;
+            } else if (arg.equals("--cache")) {
+                cacheDirectory = AstCache.defaultDirectory();
+            } else if (arg.startsWith("--cache-dir=")) {
+                cacheDirectory = Paths.get(arg.substring("--cache-dir=".length()));
+            } else if (arg.equals("--optimize")) {
+                optimize = true;
+            } else if (arg.equals("--report-loops")) {
+                optimize = true;
+                reportLoops = true;
+            } else if (arg.equals("--dump-ast")) {
+                dumpAst = true;
+            } else if (arg.startsWith("--engine=")) {
+                engine = arg.substring("--engine=".length());
+                if (!List.of("tree", "flat", "vm", "jvm", "specialize", "closure").contains(engine)) {
+                    filename = null;
+                    break;
+                }
+            } else if (filename == null && !arg.startsWith("--")) {
+                filename = arg;
+            } else {
+                filename = null;
+                break;
+            }
+        }
+
+        if (filename == null) {
+            System.out.println("Usage: spartie [--parallel-scan] [--cache | --cache-dir=<dir>]"
+                    + " [--engine=tree|flat|vm|jvm|specialize|closure] [--optimize] [--report-loops]"
+                    + " [--dump-ast] [file]");
             System.exit(ErrorCode.INCORRECT_USAGE);
         } else {
-            String filename = args[0];
             File source = new File(filename);
             if (!source.exists()) {
                 System.err.printf("File %s not found\n", filename);
@@ -24,24 +59,80 @@ public class Main {
             }
 
             try {
-                byte[] sourceCodeBytes = Files.readAllBytes(Paths.get(filename));
-                String sourceCode = new String(sourceCodeBytes, Charset.defaultCharset());
+                Path path = Paths.get(filename);
+                Charset charset = Charset.defaultCharset();
+
+                // A cached tree skips scanning and parsing entirely
+                List<Statement> statements = null;
+                AstCache cache = null;
+                String cacheKey = null;
+                if (cacheDirectory != null) {
+                    cache = new AstCache(cacheDirectory);
+                    cacheKey = AstCache.key(path, charset);
+                    statements = cache.load(cacheKey);
+                }
+
+                if (statements == null) {
+                    statements = parse(SourceLoader.load(path, charset), parallelScan);
+                    if (cache != null) {
+                        cache.store(cacheKey, statements);
+                    }
+                }
 
-                // Scan
-                SpartieScanner spartieScanner = new SpartieScanner(sourceCode);
-                List<Token> tokens = spartieScanner.scan();
+                if (optimize) {
+                    statements = ConstantFolder.fold(statements);
+                    statements = LoopOptimizer.optimize(statements, reportLoops);
+                }
 
-                // Parse
-                SpartieParser spartieParser = new SpartieParser(tokens);
-                List<Statement> statements = spartieParser.parse();
+                // Print the tree that would run instead of running it
+                if (dumpAst) {
+                    System.out.print(AstPrinter.print(statements));
+                    return;
+                }
+
+                // Only the tree walker runs functions; the other engines would reject them
+                if (!engine.equals("tree") && Resolver.usesFunctions(statements)) {
+                    engine = "tree";
+                }
 
                 // Interpret
-                SpartieInterpreter spartieInterpreter = new SpartieInterpreter();
-                spartieInterpreter.run(statements);
+                if (engine.equals("flat")) {
+                    new FlatAstInterpreter().run(FlatAst.from(statements));
+                } else if (engine.equals("vm")) {
+                    new SpartieVM().run(BytecodeCompiler.compile(statements));
+                } else if (engine.equals("specialize")) {
+                    new SpecializingInterpreter().run(statements);
+                } else if (engine.equals("closure")) {
+                    ClosureCompiler.compile(statements).run();
+                } else {
+                    // Programs the JVM backend cannot compile run on the tree walker
+                    Runnable program = engine.equals("jvm") ? JvmCompiler.compile(statements) : null;
+                    if (program != null) {
+                        program.run();
+                        return;
+                    }
+                    int globalSlots = Resolver.resolve(statements);
+                    SpartieInterpreter spartieInterpreter = new SpartieInterpreter();
+                    spartieInterpreter.runResolved(statements, globalSlots);
+                }
 
             } catch (IOException e) {
                 System.err.printf("Unable to read file %s\n", filename);
             }
         }
     }
+
+    private static List<Statement> parse(CharSequence sourceCode, boolean parallelScan) {
+        // By default the parser pulls tokens from the scanner as it needs them, a parallel scan
+        // lexes the whole source up front across all cores
+        SpartieParser spartieParser;
+        if (parallelScan) {
+            List<Token> tokens = new SpartieParallelScanner(sourceCode).scan();
+            spartieParser = new SpartieParser(new ListTokenStream(tokens), true);
+        } else {
+            SpartieTableScanner spartieScanner = new SpartieTableScanner(sourceCode);
+            spartieParser = new SpartieParser(new LookaheadTokenStream(spartieScanner::nextToken), true);
+        }
+        return spartieParser.parse();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,576 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+// Executable tree for SpecializingInterpreter. Binary and unary operator nodes start out
+// uninitialized and, the first time they run, replace themselves in their parent with a node
+// specialized for the operand types they saw: double arithmetic, double comparison or string
+// concatenation. A specialized node checks only the types it expects; when that guard fails it
+// replaces itself with the generic node, which handles every case through Operations and never
+// rewrites again.
+abstract class Node {
+    Node parent;
+
+    // Puts replacement where this node is in the parent and returns it
+    <T extends Node> T replace(T replacement) {
+        replacement.parent = parent;
+        parent.replaceChild(this, replacement);
+        return replacement;
+    }
+
+    void replaceChild(Node child, Node replacement) {
+        throw new IllegalStateException(getClass().getSimpleName() + " has no replaceable children");
+    }
+
+    <T extends Node> T adopt(T child) {
+        if (child != null) {
+            child.parent = this;
+        }
+        return child;
+    }
+
+    abstract static class ExpressionNode extends Node {
+        abstract Object execute(SpecializingInterpreter interpreter);
+    }
+
+    abstract static class StatementNode extends Node {
+        abstract void execute(SpecializingInterpreter interpreter);
+    }
+
+    // Statements
+
+    static class PrintNode extends StatementNode {
+        ExpressionNode expression;
+
+        PrintNode(ExpressionNode expression) {
+            this.expression = adopt(expression);
+        }
+
+        @Override
+        void execute(SpecializingInterpreter interpreter) {
+            Object value = expression.execute(interpreter);
+            System.out.println(value.toString());
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement) {
+            expression = (ExpressionNode) replacement;
+        }
+    }
+
+    static class ExpressionStatementNode extends StatementNode {
+        ExpressionNode expression;
+
+        ExpressionStatementNode(ExpressionNode expression) {
+            this.expression = adopt(expression);
+        }
+
+        @Override
+        void execute(SpecializingInterpreter interpreter) {
+            expression.execute(interpreter);
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement) {
+            expression = (ExpressionNode) replacement;
+        }
+    }
+
+    static class DefineNode extends StatementNode {
+        final int depth;
+        final int slot;
+        ExpressionNode initializer;
+
+        DefineNode(int depth, int slot, ExpressionNode initializer) {
+            this.depth = depth;
+            this.slot = slot;
+            this.initializer = adopt(initializer);
+        }
+
+        @Override
+        void execute(SpecializingInterpreter interpreter) {
+            Object value = initializer == null ? null : initializer.execute(interpreter);
+            if (depth == Resolver.GLOBAL) {
+                interpreter.globals[slot] = value;
+            } else {
+                interpreter.frame.slots[slot] = value;
+            }
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement) {
+            initializer = (ExpressionNode) replacement;
+        }
+    }
+
+    static class BlockNode extends StatementNode {
+        // 0 when the block declares nothing and needs no frame
+        final int slots;
+        final StatementNode[] statements;
+
+        BlockNode(int slots, StatementNode[] statements) {
+            this.slots = slots;
+            this.statements = statements;
+            for (StatementNode statement : statements) {
+                adopt(statement);
+            }
+        }
+
+        @Override
+        void execute(SpecializingInterpreter interpreter) {
+            if (slots == 0) {
+                for (StatementNode statement : statements) {
+                    statement.execute(interpreter);
+                }
+                return;
+            }
+
+            Frame previous = interpreter.frame;
+            interpreter.frame = new Frame(slots, previous);
+            for (StatementNode statement : statements) {
+                statement.execute(interpreter);
+            }
+            interpreter.frame = previous;
+        }
+    }
+
+    static class IfNode extends StatementNode {
+        ExpressionNode condition;
+        final StatementNode thenBranch;
+        final StatementNode elseBranch;
+
+        IfNode(ExpressionNode condition, StatementNode thenBranch, StatementNode elseBranch) {
+            this.condition = adopt(condition);
+            this.thenBranch = adopt(thenBranch);
+            this.elseBranch = adopt(elseBranch);
+        }
+
+        @Override
+        void execute(SpecializingInterpreter interpreter) {
+            if (Operations.isTrue(condition.execute(interpreter))) {
+                thenBranch.execute(interpreter);
+            } else if (elseBranch != null) {
+                elseBranch.execute(interpreter);
+            }
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement) {
+            condition = (ExpressionNode) replacement;
+        }
+    }
+
+    static class WhileNode extends StatementNode {
+        ExpressionNode condition;
+        final StatementNode body;
+
+        WhileNode(ExpressionNode condition, StatementNode body) {
+            this.condition = adopt(condition);
+            this.body = adopt(body);
+        }
+
+        @Override
+        void execute(SpecializingInterpreter interpreter) {
+            while (Operations.isTrue(condition.execute(interpreter))) {
+                body.execute(interpreter);
+            }
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement) {
+            condition = (ExpressionNode) replacement;
+        }
+    }
+
+    static class ForNode extends StatementNode {
+        // 1 when the initializer declares the loop variable, which gets one frame for the whole loop
+        final int slots;
+        final StatementNode initializer;
+        ExpressionNode condition;
+        ExpressionNode increment;
+        final StatementNode body;
+
+        ForNode(int slots, StatementNode initializer, ExpressionNode condition, ExpressionNode increment,
+                StatementNode body) {
+            this.slots = slots;
+            this.initializer = adopt(initializer);
+            this.condition = adopt(condition);
+            this.increment = adopt(increment);
+            this.body = adopt(body);
+        }
+
+        @Override
+        void execute(SpecializingInterpreter interpreter) {
+            Frame previous = interpreter.frame;
+            if (slots > 0) {
+                interpreter.frame = new Frame(slots, previous);
+            }
+            if (initializer != null) {
+                initializer.execute(interpreter);
+            }
+            while (Operations.isTrue(condition.execute(interpreter))) {
+                body.execute(interpreter);
+                if (increment != null) {
+                    increment.execute(interpreter);
+                }
+            }
+            interpreter.frame = previous;
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement) {
+            if (condition == child) {
+                condition = (ExpressionNode) replacement;
+            } else {
+                increment = (ExpressionNode) replacement;
+            }
+        }
+    }
+
+    // Variables and literals
+
+    static class LiteralNode extends ExpressionNode {
+        final Object value;
+
+        LiteralNode(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        Object execute(SpecializingInterpreter interpreter) {
+            return value;
+        }
+    }
+
+    static class LocalReadNode extends ExpressionNode {
+        final int depth;
+        final int slot;
+
+        LocalReadNode(int depth, int slot) {
+            this.depth = depth;
+            this.slot = slot;
+        }
+
+        @Override
+        Object execute(SpecializingInterpreter interpreter) {
+            return interpreter.frame.ancestor(depth).slots[slot];
+        }
+    }
+
+    static class GlobalReadNode extends ExpressionNode {
+        final int slot;
+
+        GlobalReadNode(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        Object execute(SpecializingInterpreter interpreter) {
+            Object value = interpreter.globals[slot];
+            return value == SpecializingInterpreter.UNDEFINED ? null : value;
+        }
+    }
+
+    static class AssignNode extends ExpressionNode {
+        final Token name;
+        final int depth;
+        final int slot;
+        ExpressionNode value;
+
+        AssignNode(Token name, int depth, int slot, ExpressionNode value) {
+            this.name = name;
+            this.depth = depth;
+            this.slot = slot;
+            this.value = adopt(value);
+        }
+
+        @Override
+        Object execute(SpecializingInterpreter interpreter) {
+            Object result = value.execute(interpreter);
+            if (depth != Resolver.GLOBAL) {
+                interpreter.frame.ancestor(depth).slots[slot] = result;
+            } else if (interpreter.globals[slot] != SpecializingInterpreter.UNDEFINED) {
+                interpreter.globals[slot] = result;
+            } else {
+                System.err.println("Undefined variable: " + name.text);
+                System.exit(ErrorCode.INTERPRET_ERROR);
+            }
+            return result;
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement) {
+            value = (ExpressionNode) replacement;
+        }
+    }
+
+    static class LogicalNode extends ExpressionNode {
+        final boolean or;
+        ExpressionNode left;
+        ExpressionNode right;
+
+        LogicalNode(boolean or, ExpressionNode left, ExpressionNode right) {
+            this.or = or;
+            this.left = adopt(left);
+            this.right = adopt(right);
+        }
+
+        @Override
+        Object execute(SpecializingInterpreter interpreter) {
+            Object value = left.execute(interpreter);
+            // Short-circuit
+            if (or == Operations.isTrue(value)) {
+                return value;
+            }
+            return right.execute(interpreter);
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement) {
+            if (left == child) {
+                left = (ExpressionNode) replacement;
+            } else {
+                right = (ExpressionNode) replacement;
+            }
+        }
+    }
+
+    // Binary operators
+
+    abstract static class BinaryNode extends ExpressionNode {
+        final TokenType operator;
+        final int line;
+        ExpressionNode left;
+        ExpressionNode right;
+
+        BinaryNode(TokenType operator, int line, ExpressionNode left, ExpressionNode right) {
+            this.operator = operator;
+            this.line = line;
+            this.left = adopt(left);
+            this.right = adopt(right);
+        }
+
+        @Override
+        final Object execute(SpecializingInterpreter interpreter) {
+            Object leftValue = left.execute(interpreter);
+            Object rightValue = right.execute(interpreter);
+            return apply(leftValue, rightValue);
+        }
+
+        // The result for operands that have already been evaluated
+        abstract Object apply(Object left, Object right);
+
+        // Rewrites into the node for these operand types, then applies it
+        Object specialize(Object leftValue, Object rightValue) {
+            BinaryNode specialized;
+            if (leftValue instanceof Double && rightValue instanceof Double) {
+                specialized = switch (operator) {
+                    // The tree walker adds for subtraction too
+                    case ADD, SUBTRACT -> new DoubleAddNode(operator, line, left, right);
+                    case MULTIPLY -> new DoubleMultiplyNode(operator, line, left, right);
+                    case DIVIDE -> new DoubleDivideNode(operator, line, left, right);
+                    case LESS_THAN, LESS_EQUAL, GREATER_THAN, GREATER_EQUAL ->
+                            new DoubleCompareNode(operator, line, left, right);
+                    default -> new GenericBinaryNode(operator, line, left, right);
+                };
+            } else if (operator == TokenType.ADD && leftValue instanceof String && rightValue instanceof String) {
+                specialized = new StringConcatNode(operator, line, left, right);
+            } else {
+                specialized = new GenericBinaryNode(operator, line, left, right);
+            }
+            return replace(specialized).apply(leftValue, rightValue);
+        }
+
+        // A type guard failed: give up on specializing this site
+        Object generalize(Object leftValue, Object rightValue) {
+            return replace(new GenericBinaryNode(operator, line, left, right)).apply(leftValue, rightValue);
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement) {
+            if (left == child) {
+                left = (ExpressionNode) replacement;
+            } else {
+                right = (ExpressionNode) replacement;
+            }
+        }
+    }
+
+    static class UninitializedBinaryNode extends BinaryNode {
+        UninitializedBinaryNode(TokenType operator, int line, ExpressionNode left, ExpressionNode right) {
+            super(operator, line, left, right);
+        }
+
+        @Override
+        Object apply(Object leftValue, Object rightValue) {
+            return specialize(leftValue, rightValue);
+        }
+    }
+
+    static class GenericBinaryNode extends BinaryNode {
+        GenericBinaryNode(TokenType operator, int line, ExpressionNode left, ExpressionNode right) {
+            super(operator, line, left, right);
+        }
+
+        @Override
+        Object apply(Object leftValue, Object rightValue) {
+            return Operations.binary(operator, line, leftValue, rightValue);
+        }
+    }
+
+    static final class DoubleAddNode extends BinaryNode {
+        DoubleAddNode(TokenType operator, int line, ExpressionNode left, ExpressionNode right) {
+            super(operator, line, left, right);
+        }
+
+        @Override
+        Object apply(Object leftValue, Object rightValue) {
+            if (leftValue instanceof Double a && rightValue instanceof Double b) {
+                return a + b;
+            }
+            return generalize(leftValue, rightValue);
+        }
+    }
+
+    static final class DoubleMultiplyNode extends BinaryNode {
+        DoubleMultiplyNode(TokenType operator, int line, ExpressionNode left, ExpressionNode right) {
+            super(operator, line, left, right);
+        }
+
+        @Override
+        Object apply(Object leftValue, Object rightValue) {
+            if (leftValue instanceof Double a && rightValue instanceof Double b) {
+                return a * b;
+            }
+            return generalize(leftValue, rightValue);
+        }
+    }
+
+    static final class DoubleDivideNode extends BinaryNode {
+        DoubleDivideNode(TokenType operator, int line, ExpressionNode left, ExpressionNode right) {
+            super(operator, line, left, right);
+        }
+
+        @Override
+        Object apply(Object leftValue, Object rightValue) {
+            if (leftValue instanceof Double a && rightValue instanceof Double b) {
+                return a / b;
+            }
+            return generalize(leftValue, rightValue);
+        }
+    }
+
+    static final class DoubleCompareNode extends BinaryNode {
+        DoubleCompareNode(TokenType operator, int line, ExpressionNode left, ExpressionNode right) {
+            super(operator, line, left, right);
+        }
+
+        @Override
+        Object apply(Object leftValue, Object rightValue) {
+            if (leftValue instanceof Double a && rightValue instanceof Double b) {
+                return switch (operator) {
+                    case LESS_THAN -> a < b;
+                    case LESS_EQUAL -> a <= b;
+                    case GREATER_THAN -> a > b;
+                    default -> a >= b;
+                };
+            }
+            return generalize(leftValue, rightValue);
+        }
+    }
+
+    static final class StringConcatNode extends BinaryNode {
+        StringConcatNode(TokenType operator, int line, ExpressionNode left, ExpressionNode right) {
+            super(operator, line, left, right);
+        }
+
+        @Override
+        Object apply(Object leftValue, Object rightValue) {
+            if (leftValue instanceof String a && rightValue instanceof String b) {
+                return a + b;
+            }
+            return generalize(leftValue, rightValue);
+        }
+    }
+
+    // Unary operators
+
+    static class NotNode extends ExpressionNode {
+        ExpressionNode operand;
+
+        NotNode(ExpressionNode operand) {
+            this.operand = adopt(operand);
+        }
+
+        @Override
+        Object execute(SpecializingInterpreter interpreter) {
+            return !Operations.isTrue(operand.execute(interpreter));
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement) {
+            operand = (ExpressionNode) replacement;
+        }
+    }
+
+    abstract static class NegateNode extends ExpressionNode {
+        final int line;
+        ExpressionNode operand;
+
+        NegateNode(int line, ExpressionNode operand) {
+            this.line = line;
+            this.operand = adopt(operand);
+        }
+
+        @Override
+        final Object execute(SpecializingInterpreter interpreter) {
+            return apply(operand.execute(interpreter));
+        }
+
+        abstract Object apply(Object value);
+
+        @Override
+        void replaceChild(Node child, Node replacement) {
+            operand = (ExpressionNode) replacement;
+        }
+    }
+
+    static class UninitializedNegateNode extends NegateNode {
+        UninitializedNegateNode(int line, ExpressionNode operand) {
+            super(line, operand);
+        }
+
+        @Override
+        Object apply(Object value) {
+            NegateNode specialized = value instanceof Double
+                    ? new DoubleNegateNode(line, operand)
+                    : new GenericNegateNode(line, operand);
+            return replace(specialized).apply(value);
+        }
+    }
+
+    static class GenericNegateNode extends NegateNode {
+        GenericNegateNode(int line, ExpressionNode operand) {
+            super(line, operand);
+        }
+
+        @Override
+        Object apply(Object value) {
+            return Operations.unary(TokenType.SUBTRACT, line, value);
+        }
+    }
+
+    static final class DoubleNegateNode extends NegateNode {
+        DoubleNegateNode(int line, ExpressionNode operand) {
+            super(line, operand);
+        }
+
+        @Override
+        Object apply(Object value) {
+            if (value instanceof Double number) {
+                return -number;
+            }
+            return replace(new GenericNegateNode(line, operand)).apply(value);
+        }
+    }
+}
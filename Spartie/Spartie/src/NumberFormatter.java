@@ -0,0 +1,101 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+// Number to text without going through Formatter. fixed2 gives what String.format("%.2f") gives
+// and toString what Double.toString gives, written into a char array the caller can reuse. Each
+// handles the common case itself and returns -1 for anything else, which the String versions pass
+// on to the JDK, so the text is always the same as before.
+public class NumberFormatter {
+    // Longest text either method writes: a sign, 13 digits, a period and two decimals
+    static final int MAX_LENGTH = 20;
+
+    // Magnitudes fixed2 handles itself; their cents are exact longs
+    private static final double MAX_FIXED = 1e13;
+
+    // Double.toString switches to scientific notation from here on
+    private static final double MAX_PLAIN = 1e7;
+
+    // Formatter localizes digits and the decimal separator; other locales always use the JDK
+    private static final boolean PLAIN_DIGITS = plainDigits(Locale.getDefault(Locale.Category.FORMAT));
+
+    private static boolean plainDigits(Locale locale) {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        return symbols.getZeroDigit() == '0' && symbols.getDecimalSeparator() == '.'
+                && symbols.getMinusSign() == '-';
+    }
+
+    // String.format("%.2f", value)
+    static String fixed2(double value) {
+        char[] buffer = new char[MAX_LENGTH];
+        int length = fixed2(value, buffer);
+        return length >= 0 ? new String(buffer, 0, length) : String.format("%.2f", value);
+    }
+
+    // Double.toString(value)
+    static String toString(double value) {
+        char[] buffer = new char[MAX_LENGTH];
+        int length = toString(value, buffer);
+        return length >= 0 ? new String(buffer, 0, length) : Double.toString(value);
+    }
+
+    // Writes value as %.2f formats it to the start of buffer and returns the length, or -1 if the
+    // JDK has to do it
+    static int fixed2(double value, char[] buffer) {
+        double magnitude = Math.abs(value);
+        if (!PLAIN_DIGITS || !(magnitude < MAX_FIXED)) {
+            return -1;
+        }
+        // magnitude * 100 is exactly scaled + error
+        double scaled = magnitude * 100;
+        double error = Math.fma(magnitude, 100, -scaled);
+        double whole = Math.floor(scaled);
+        double fraction = (scaled - whole) + error;
+        // Formatter rounds half up the shortest decimal digits that read back as the value, which
+        // can be up to half an ulp away from it, so too close to a halfway point it could go either
+        // way
+        if (Math.abs(fraction - 0.5) <= Math.ulp(magnitude) * 100) {
+            return -1;
+        }
+        long cents = (long) whole + (fraction > 0.5 ? 1 : 0);
+        // The sign of -0.0 and of anything that rounds to it is kept
+        int length = writeWhole(Double.doubleToRawLongBits(value) < 0, cents / 100, buffer);
+        long decimals = cents % 100;
+        buffer[length] = '.';
+        buffer[length + 1] = (char) ('0' + decimals / 10);
+        buffer[length + 2] = (char) ('0' + decimals % 10);
+        return length + 3;
+    }
+
+    // Writes value as Double.toString formats it to the start of buffer and returns the length, or
+    // -1 if the JDK has to do it. Only whole numbers are handled, which is what loops count in.
+    static int toString(double value, char[] buffer) {
+        if (!(Math.abs(value) < MAX_PLAIN) || value != Math.rint(value)) {
+            return -1;
+        }
+        int length = writeWhole(Double.doubleToRawLongBits(value) < 0, (long) Math.abs(value), buffer);
+        buffer[length] = '.';
+        buffer[length + 1] = '0';
+        return length + 2;
+    }
+
+    // Writes an optional minus sign and the digits of whole to the start of buffer and returns
+    // the length
+    private static int writeWhole(boolean negative, long whole, char[] buffer) {
+        int length = negative ? 2 : 1;
+        for (long rest = whole / 10; rest != 0; rest /= 10) {
+            length++;
+        }
+        if (negative) {
+            buffer[0] = '-';
+        }
+        for (int i = length - 1; i >= (negative ? 1 : 0); i--) {
+            buffer[i] = (char) ('0' + whole % 10);
+            whole /= 10;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,96 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+// Numeric literal parsing straight from the source. Digits are accumulated into a long and, as long
+// as both the digits and the power of ten are exact doubles, a single division gives the same
+// correctly rounded value Double.parseDouble would. Anything longer falls back to parseDouble.
+// Values are boxed once and shared by every literal that spells the same number.
+public class NumberLiterals {
+    // Largest mantissa that converts to a double exactly
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    // Powers of ten that are exact doubles
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Keeps a table of unique constants from growing without bound on huge lookup tables
+    private static final int MAX_CACHED = 1 << 16;
+
+    // Open addressing table of canonical boxed values keyed by their bits
+    private long[] keys = new long[256];
+    private Double[] values = new Double[256];
+    private int count = 0;
+
+    // Parses source[start, end), which holds digits with at most one period
+    public Double parse(CharSequence source, int start, int end) {
+        long mantissa = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+
+        for (int i = start; i < end; i++) {
+            char character = source.charAt(i);
+            if (character == '.') {
+                fraction = true;
+                continue;
+            }
+            mantissa = mantissa * 10 + (character - '0');
+            if (mantissa > MAX_EXACT_MANTISSA) {
+                return box(Double.parseDouble(source.subSequence(start, end).toString()));
+            }
+            if (fraction) {
+                fractionDigits++;
+            }
+        }
+
+        if (fractionDigits >= POWERS_OF_TEN.length) {
+            return box(Double.parseDouble(source.subSequence(start, end).toString()));
+        }
+        return box(mantissa / POWERS_OF_TEN[fractionDigits]);
+    }
+
+    private Double box(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        int mask = keys.length - 1;
+        int slot = (int) (bits ^ (bits >>> 32)) * 0x9E3779B9 & mask;
+        Double boxed;
+        while ((boxed = values[slot]) != null) {
+            if (keys[slot] == bits) {
+                return boxed;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        boxed = value;
+        if (count < MAX_CACHED) {
+            keys[slot] = bits;
+            values[slot] = boxed;
+            if (++count * 2 > keys.length) {
+                grow();
+            }
+        }
+        return boxed;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Double[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Double[oldValues.length * 2];
+
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                long bits = oldKeys[i];
+                int slot = (int) (bits ^ (bits >>> 32)) * 0x9E3779B9 & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = bits;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
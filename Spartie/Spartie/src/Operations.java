@@ -0,0 +1,145 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+// Operator semantics shared by every execution engine, so they all agree with SpartieInterpreter
+// on results, type errors and error messages
+public class Operations {
+    private static final String[] OPERATOR_TEXT = new String[TokenType.values().length];
+    static {
+        OPERATOR_TEXT[TokenType.ADD.ordinal()] = "+";
+        OPERATOR_TEXT[TokenType.SUBTRACT.ordinal()] = "-";
+        OPERATOR_TEXT[TokenType.MULTIPLY.ordinal()] = "*";
+        OPERATOR_TEXT[TokenType.DIVIDE.ordinal()] = "/";
+        OPERATOR_TEXT[TokenType.EQUIVALENT.ordinal()] = "==";
+        OPERATOR_TEXT[TokenType.NOT_EQUAL.ordinal()] = "!=";
+        OPERATOR_TEXT[TokenType.LESS_THAN.ordinal()] = "<";
+        OPERATOR_TEXT[TokenType.LESS_EQUAL.ordinal()] = "<=";
+        OPERATOR_TEXT[TokenType.GREATER_THAN.ordinal()] = ">";
+        OPERATOR_TEXT[TokenType.GREATER_EQUAL.ordinal()] = ">=";
+        OPERATOR_TEXT[TokenType.NOT.ordinal()] = "!";
+        OPERATOR_TEXT[TokenType.AND.ordinal()] = "&";
+        OPERATOR_TEXT[TokenType.OR.ordinal()] = "|";
+    }
+
+    // The source text of an operator token type
+    static String text(TokenType operator) {
+        return OPERATOR_TEXT[operator.ordinal()];
+    }
+
+    static Object unary(TokenType operator, int line, Object right) {
+        switch (operator) {
+            case NOT:
+                return !isTrue(right);
+            case SUBTRACT:
+                validateOperand(operator, line, right);
+                return -(double) right;
+        }
+
+        return null;
+    }
+
+    static Object binary(TokenType operator, int line, Object left, Object right) {
+        // Handle unique case with add operator that can be applied to Strings and
+        // Doubles
+        if (operator == TokenType.ADD) {
+            if (left instanceof Double && right instanceof Double) {
+                return (double) left + (double) right;
+            } else if (left instanceof String && right instanceof String) {
+                return (String) left + (String) right;
+            } else if ((left instanceof String || right instanceof String)
+                    && (left instanceof Double || right instanceof Double)) {
+                if (left instanceof Double) {
+                    return NumberFormatter.fixed2((Double) left).concat((String) right);
+                } else {
+                    return ((String) left).concat(NumberFormatter.fixed2((Double) right));
+                }
+            }
+        }
+
+        switch (operator) {
+            case EQUIVALENT:
+                return isEquivalent(left, right);
+            case NOT_EQUAL:
+                return !isEquivalent(left, right);
+        }
+
+        // If we ge this far, then validate operands
+        validateOperands(operator, line, left, right);
+
+        switch (operator) {
+            case SUBTRACT:
+                return (double) left + (double) right;
+            case MULTIPLY:
+                return (double) left * (double) right;
+            case DIVIDE:
+                return (double) left / (double) right;
+            case GREATER_THAN:
+                return (double) left > (double) right;
+            case GREATER_EQUAL:
+                return (double) left >= (double) right;
+            case LESS_THAN:
+                return (double) left < (double) right;
+            case LESS_EQUAL:
+                return (double) left <= (double) right;
+        }
+
+        return null;
+    }
+
+    // Whether binary() succeeds on these operands instead of reporting a type error
+    static boolean isWellTyped(TokenType operator, Object left, Object right) {
+        switch (operator) {
+            case EQUIVALENT, NOT_EQUAL:
+                return true;
+            case ADD:
+                if ((left instanceof String || left instanceof Double)
+                        && (right instanceof String || right instanceof Double)) {
+                    return true;
+                }
+        }
+        return left instanceof Double && right instanceof Double;
+    }
+
+    // Test equivalency
+    static boolean isEquivalent(Object left, Object right) {
+        // They are equal under the following conditions:
+        // 1. They are both null
+        // 2. The equals method returns true (String or Double)
+
+        // We have to account a NPE
+        if (left == null && right == null)
+            return true;
+        if (left == null || right == null)
+            return false;
+
+        return left.equals(right);
+    }
+
+    // False is literal false or null
+    static boolean isTrue(Object object) {
+        if (object == null)
+            return false;
+        if (object instanceof Boolean)
+            return (boolean) object;
+        return true;
+    }
+
+    // Validate the type
+    static void validateOperand(TokenType operator, int line, Object operand) {
+        if (operand instanceof Double)
+            return;
+        error("Invalid type on line " + line + " : " + text(operator) + operand);
+    }
+
+    static void validateOperands(TokenType operator, int line, Object operand1, Object operand2) {
+        if (operand1 instanceof Double && operand2 instanceof Double)
+            return;
+        error("Invalid type on line " + line + " : " + operand1 + text(operator) + operand2);
+    }
+
+    static void error(String message) {
+        System.err.println(message);
+        System.exit(2);
+    }
+}
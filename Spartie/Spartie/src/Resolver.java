@@ -0,0 +1,241 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Works out at compile time where every variable lives, so the interpreter can index frames
+// instead of looking names up in Environment maps.
+//
+// A var declaration can only appear directly in a block or at the top level, and statements in
+// a block run in source order, so the declaration a name refers to is always the closest one
+// above it in an enclosing block. Each block that declares variables gets a frame with one slot
+// per distinct name; a reference records how many frames to walk out (depth) and the slot there.
+// Blocks that declare nothing get no frame and are not counted.
+//
+// Every other name is a global: top level declarations, and names that are never declared at
+// all. Globals live in one array indexed by slot and start out undefined, which keeps the
+// original behavior of reading null and failing on assignment before the declaration has run.
+//
+// A function declaration is stored like a var. Its body always gets a frame, created per call,
+// holding the parameters in the first slots and then the variables declared directly in the
+// body; blocks inside it follow the rules above, and names from outside resolve through the
+// frame the declaration ran in.
+public class Resolver {
+    // Depth of a global slot
+    public static final int GLOBAL = -2;
+    // Depth and slot of a node the Resolver has not seen
+    public static final int UNRESOLVED = -1;
+
+    private final Map<String, Integer> globals = new HashMap<>();
+    // Innermost last; only blocks that get a frame
+    private final List<Map<String, Integer>> scopes = new ArrayList<>();
+
+    private Resolver() {
+    }
+
+    // Resolves the program in place and returns the number of global slots
+    public static int resolve(List<Statement> statements) {
+        Resolver resolver = new Resolver();
+        for (Statement statement : statements) {
+            resolver.resolve(statement);
+        }
+        return resolver.globals.size();
+    }
+
+    private void resolve(Statement statement) {
+        switch (statement) {
+            case Statement.PrintStatement printStatement -> resolve(printStatement.expression);
+            case Statement.ExpressionStatement expressionStatement -> resolve(expressionStatement.expression);
+            case Statement.VariableStatement variableStatement -> {
+                // The initializer still sees the outer variable of the same name
+                resolve(variableStatement.initializer);
+                String name = variableStatement.name.text;
+                if (scopes.isEmpty()) {
+                    variableStatement.depth = GLOBAL;
+                    variableStatement.slot = global(name);
+                } else {
+                    Map<String, Integer> scope = scopes.get(scopes.size() - 1);
+                    variableStatement.depth = 0;
+                    variableStatement.slot = scope.computeIfAbsent(name, key -> scope.size());
+                }
+            }
+            case Statement.FunctionStatement functionStatement -> {
+                // Declared before the body is resolved, so the function can call itself
+                String name = functionStatement.name.text;
+                if (scopes.isEmpty()) {
+                    functionStatement.depth = GLOBAL;
+                    functionStatement.slot = global(name);
+                } else {
+                    Map<String, Integer> scope = scopes.get(scopes.size() - 1);
+                    functionStatement.depth = 0;
+                    functionStatement.slot = scope.computeIfAbsent(name, key -> scope.size());
+                }
+
+                Map<String, Integer> scope = new HashMap<>();
+                for (Token parameter : functionStatement.parameters) {
+                    scope.put(parameter.text, scope.size());
+                }
+                scopes.add(scope);
+                for (Statement inner : functionStatement.body) {
+                    resolve(inner);
+                }
+                scopes.remove(scopes.size() - 1);
+                functionStatement.slots = scope.size();
+            }
+            case Statement.ReturnStatement returnStatement -> resolve(returnStatement.value);
+            case Statement.BlockStatement blockStatement -> {
+                boolean declares = false;
+                for (Statement inner : blockStatement.statements) {
+                    declares |= inner instanceof Statement.VariableStatement
+                            || inner instanceof Statement.FunctionStatement;
+                }
+                if (!declares) {
+                    blockStatement.slots = 0;
+                    for (Statement inner : blockStatement.statements) {
+                        resolve(inner);
+                    }
+                    return;
+                }
+
+                Map<String, Integer> scope = new HashMap<>();
+                scopes.add(scope);
+                for (Statement inner : blockStatement.statements) {
+                    resolve(inner);
+                }
+                scopes.remove(scopes.size() - 1);
+                blockStatement.slots = scope.size();
+            }
+            case Statement.ForStatement forStatement -> {
+                // Like a block holding the initializer and the loop, but the body and increment
+                // never declare anything in it, so it needs a frame only for a var initializer
+                boolean declares = forStatement.initializer instanceof Statement.VariableStatement;
+                if (declares) {
+                    scopes.add(new HashMap<>());
+                }
+                resolve(forStatement.initializer);
+                resolve(forStatement.condition);
+                resolve(forStatement.body);
+                resolve(forStatement.increment);
+                if (declares) {
+                    scopes.remove(scopes.size() - 1);
+                }
+                forStatement.slots = declares ? 1 : 0;
+            }
+            case Statement.IfStatement ifStatement -> {
+                resolve(ifStatement.condition);
+                resolve(ifStatement.thenBranch);
+                resolve(ifStatement.elseBranch);
+            }
+            case Statement.WhileStatement whileStatement -> {
+                resolve(whileStatement.condition);
+                resolve(whileStatement.body);
+            }
+            case null, default -> {
+            }
+        }
+    }
+
+    private void resolve(Expression expression) {
+        switch (expression) {
+            case Expression.AssignmentExpression assignmentExpression -> {
+                resolve(assignmentExpression.value);
+                String name = assignmentExpression.name.text;
+                assignmentExpression.depth = depth(name);
+                assignmentExpression.slot = slot(name, assignmentExpression.depth);
+            }
+            case Expression.VariableExpression variableExpression -> {
+                String name = variableExpression.name.text;
+                variableExpression.depth = depth(name);
+                variableExpression.slot = slot(name, variableExpression.depth);
+            }
+            case Expression.LogicalExpression logicalExpression -> {
+                resolve(logicalExpression.left);
+                resolve(logicalExpression.right);
+            }
+            case Expression.BinaryExpression binaryExpression -> {
+                resolve(binaryExpression.left);
+                resolve(binaryExpression.right);
+            }
+            case Expression.UnaryExpression unaryExpression -> resolve(unaryExpression.right);
+            case Expression.ParenthesesExpression parenthesesExpression -> resolve(parenthesesExpression.expression);
+            case Expression.CallExpression callExpression -> {
+                resolve(callExpression.callee);
+                for (Expression argument : callExpression.arguments) {
+                    resolve(argument);
+                }
+            }
+            case null, default -> {
+            }
+        }
+    }
+
+    // Whether the program declares, calls or returns from functions anywhere. Only the tree walker
+    // runs those, so Main uses this to pick it over the other engines.
+    public static boolean usesFunctions(List<Statement> statements) {
+        for (Statement statement : statements) {
+            if (usesFunctions(statement)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean usesFunctions(Statement statement) {
+        return switch (statement) {
+            case Statement.FunctionStatement functionStatement -> true;
+            case Statement.ReturnStatement returnStatement -> true;
+            case Statement.PrintStatement printStatement -> usesFunctions(printStatement.expression);
+            case Statement.ExpressionStatement expressionStatement -> usesFunctions(expressionStatement.expression);
+            case Statement.VariableStatement variableStatement -> usesFunctions(variableStatement.initializer);
+            case Statement.BlockStatement blockStatement -> usesFunctions(blockStatement.statements);
+            case Statement.IfStatement ifStatement -> usesFunctions(ifStatement.condition)
+                    || usesFunctions(ifStatement.thenBranch) || usesFunctions(ifStatement.elseBranch);
+            case Statement.WhileStatement whileStatement -> usesFunctions(whileStatement.condition)
+                    || usesFunctions(whileStatement.body);
+            case Statement.ForStatement forStatement -> usesFunctions(forStatement.initializer)
+                    || usesFunctions(forStatement.condition) || usesFunctions(forStatement.increment)
+                    || usesFunctions(forStatement.body);
+            case null, default -> false;
+        };
+    }
+
+    private static boolean usesFunctions(Expression expression) {
+        return switch (expression) {
+            case Expression.CallExpression callExpression -> true;
+            case Expression.AssignmentExpression assignmentExpression -> usesFunctions(assignmentExpression.value);
+            case Expression.LogicalExpression logicalExpression -> usesFunctions(logicalExpression.left)
+                    || usesFunctions(logicalExpression.right);
+            case Expression.BinaryExpression binaryExpression -> usesFunctions(binaryExpression.left)
+                    || usesFunctions(binaryExpression.right);
+            case Expression.UnaryExpression unaryExpression -> usesFunctions(unaryExpression.right);
+            case Expression.ParenthesesExpression parenthesesExpression ->
+                    usesFunctions(parenthesesExpression.expression);
+            case null, default -> false;
+        };
+    }
+
+    // Frames between the current block and the one declaring name so far, or GLOBAL
+    private int depth(String name) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            if (scopes.get(i).containsKey(name)) {
+                return scopes.size() - 1 - i;
+            }
+        }
+        return GLOBAL;
+    }
+
+    private int slot(String name, int depth) {
+        if (depth == GLOBAL) {
+            return global(name);
+        }
+        return scopes.get(scopes.size() - 1 - depth).get(name);
+    }
+
+    private int global(String name) {
+        return globals.computeIfAbsent(name, key -> globals.size());
+    }
+}
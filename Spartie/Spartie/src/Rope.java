@@ -0,0 +1,82 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+// A string built by concatenation in the tree walker. It covers a prefix of a StringBuilder that
+// only ever grows at the end, so a rope is immutable even though its buffer is shared: appending to
+// the rope that covers the whole buffer extends the buffer in place and returns a longer rope over
+// it, and s = s + line in a loop takes time linear in the length of s instead of quadratic.
+// Appending to an older rope, or prepending, copies into a new buffer.
+//
+// The characters are only copied out into a String when the rope is flattened by toString(), for
+// printing and for every operator other than +, and the String is kept for the next time.
+public class Rope implements CharSequence {
+    // Results shorter than this stay Strings
+    static final int MIN_LENGTH = 256;
+
+    private final StringBuilder buffer;
+    private final int length;
+    private String flat;
+
+    private Rope(StringBuilder buffer, int length) {
+        this.buffer = buffer;
+        this.length = length;
+    }
+
+    // left + right, as a String when it is short and as a Rope otherwise
+    static CharSequence concat(CharSequence left, CharSequence right) {
+        int length = left.length() + right.length();
+        if (left instanceof Rope rope && rope.length == rope.buffer.length()) {
+            // Flatten first: right may be this very rope
+            rope.buffer.append(right.toString());
+            return new Rope(rope.buffer, length);
+        }
+        if (length < MIN_LENGTH) {
+            return left.toString().concat(right.toString());
+        }
+        StringBuilder buffer = new StringBuilder(Math.max(length * 2, MIN_LENGTH));
+        buffer.append(left.toString()).append(right.toString());
+        return new Rope(buffer, length);
+    }
+
+    // left + the first count characters of right, which are copied straight into the buffer when
+    // left can be extended
+    static CharSequence concat(CharSequence left, char[] right, int count) {
+        if (left instanceof Rope rope && rope.length == rope.buffer.length()) {
+            rope.buffer.append(right, 0, count);
+            return new Rope(rope.buffer, rope.length + count);
+        }
+        return concat(left, new String(right, 0, count));
+    }
+
+    // value with a Rope flattened to its String
+    static Object flat(Object value) {
+        return value instanceof Rope rope ? rope.toString() : value;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return buffer.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        if (flat == null) {
+            flat = buffer.substring(0, length);
+        }
+        return flat;
+    }
+}
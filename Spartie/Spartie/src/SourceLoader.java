@@ -0,0 +1,85 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Loads a script by memory-mapping the file. ASCII sources (the common case for UTF-8 and
+// US-ASCII) and ISO-8859-1 sources are read straight out of the mapping one byte per character,
+// anything else is decoded once into a CharBuffer.
+public class SourceLoader {
+    public static CharSequence load(Path path, Charset charset) throws IOException {
+        ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File " + path + " is too large to map");
+            }
+            // The mapping stays valid after the channel is closed
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        if (charset.equals(StandardCharsets.ISO_8859_1)) {
+            return new ByteSource(bytes);
+        }
+        if ((charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)) && isAscii(bytes)) {
+            return new ByteSource(bytes);
+        }
+        return charset.decode(bytes);
+    }
+
+    private static boolean isAscii(ByteBuffer bytes) {
+        int length = bytes.limit();
+        int i = 0;
+
+        // Check eight bytes at a time for a set high bit
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            if ((bytes.getLong(i) & 0x8080808080808080L) != 0) {
+                return false;
+            }
+        }
+        for (; i < length; i++) {
+            if (bytes.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // One character per byte view over a buffer, without copying it onto the heap
+    private static class ByteSource implements CharSequence {
+        private final ByteBuffer bytes;
+
+        ByteSource(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int length() {
+            return bytes.limit();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes.get(index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new ByteSource(bytes.slice(start, end - start));
+        }
+
+        @Override
+        public String toString() {
+            byte[] copy = new byte[bytes.limit()];
+            bytes.get(0, copy);
+            return new String(copy, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+// A function value: its declaration and the variables it closes over. Resolved programs capture
+// the frame the declaration ran in (null at the top level, where everything is global); the
+// Environment walker captures its current SymbolEnvironment instead.
+public class SpartieFunction {
+    final Statement.FunctionStatement declaration;
+    final Frame closure;
+    final SymbolEnvironment environment;
+
+    SpartieFunction(Statement.FunctionStatement declaration, Frame closure, SymbolEnvironment environment) {
+        this.declaration = declaration;
+        this.closure = closure;
+        this.environment = environment;
+    }
+
+    int arity() {
+        return declaration.parameters.size();
+    }
+
+    @Override
+    public String toString() {
+        return "<fn " + declaration.name.text + ">";
+    }
+}
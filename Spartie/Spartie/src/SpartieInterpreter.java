@@ -2,10 +2,54 @@
 /**
  * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
  */
+import java.util.Arrays;
 import java.util.List;
 
 public class SpartieInterpreter {
-    private Environment globalEnvironment = new Environment();
+    // Marks a global slot whose declaration has not run yet
+    private static final Object UNDEFINED = new Object();
+    // Mark a slot whose value is stored unboxed next to it, in Frame.numbers or globalNumbers: the
+    // bits of a double, or a long
+    private static final Object NUMBER = new Object();
+    private static final Object INTEGER = new Object();
+    // Integral values are kept as longs up to this magnitude, where doubles are still exact, so
+    // long and double arithmetic agree on every result a long holds
+    private static final long MAX_EXACT = 1L << 53;
+
+    private SymbolEnvironment globalEnvironment = new SymbolEnvironment();
+
+    // Variables of a program that went through the Resolver: globals by slot, and the frame of the
+    // innermost block that declares variables. globals is null when running unresolved.
+    private Object[] globals;
+    private long[] globalNumbers;
+    private Frame frame;
+
+    // Numbers are evaluated by interpretDouble wherever the operator needs one, and stored into
+    // variables unboxed, so arithmetic does not allocate a Double per operation. When the value
+    // turns out not to be a number, interpretDouble sets notANumber and leaves the value in
+    // nonNumeric for the caller to fall back to the Object path with.
+    //
+    // Whole numbers from integer literals, and from adding or multiplying them, are evaluated by
+    // interpretInteger as longs. A result that would not be exact as a long (too large, -0.0, a
+    // quotient) comes back as a double instead, through notAnInteger and nonIntegral. Longs never
+    // leave the typed path: the Object path sees the same Double it always did.
+    private boolean notANumber;
+    private Object nonNumeric;
+    private boolean notAnInteger;
+    private double nonIntegral;
+
+    // Set by a return statement until the call it returns from picks up returnValue. Loops and
+    // blocks stop running statements while it is set, so a return unwinds without an exception.
+    private boolean returning;
+    private Object returnValue;
+
+    // Calls in progress, and the line of the innermost one when the JVM stack ran out. The
+    // overflow unwinds to the outermost call, where there is stack left to report it.
+    private int callDepth;
+    private int overflowLine;
+
+    // Reused by NumberFormatter for printing numbers and appending them to strings
+    private final char[] digits = new char[NumberFormatter.MAX_LENGTH];
 
     public void run(List<Statement> statements) {
         for (Statement statement : statements) {
@@ -13,6 +57,14 @@ public class SpartieInterpreter {
         }
     }
 
+    // Runs a program resolved by Resolver.resolve(), which returned globalSlots
+    public void runResolved(List<Statement> statements, int globalSlots) {
+        globals = new Object[globalSlots];
+        globalNumbers = new long[globalSlots];
+        Arrays.fill(globals, UNDEFINED);
+        run(statements);
+    }
+
     private void interpret(Statement statement) {
         switch (statement) {
             case Statement.PrintStatement printStatement -> interpretPrintStatement(printStatement);
@@ -21,6 +73,9 @@ public class SpartieInterpreter {
             case Statement.BlockStatement blockStatement -> interpretBlockStatement(blockStatement);
             case Statement.IfStatement ifStatement -> interpretIfStatement(ifStatement);
             case Statement.WhileStatement whileStatement -> interpretWhileStatement(whileStatement);
+            case Statement.ForStatement forStatement -> interpretForStatement(forStatement);
+            case Statement.FunctionStatement functionStatement -> interpretFunctionStatement(functionStatement);
+            case Statement.ReturnStatement returnStatement -> interpretReturnStatement(returnStatement);
             case null, default -> {
             }
         }
@@ -36,6 +91,7 @@ public class SpartieInterpreter {
             case Expression.ParenthesesExpression parenthesesExpression -> interpretParenthesis(parenthesesExpression);
             case Expression.UnaryExpression unaryExpression -> interpretUnary(unaryExpression);
             case Expression.BinaryExpression binaryExpression -> interpretBinary(binaryExpression);
+            case Expression.CallExpression callExpression -> interpretCall(callExpression);
             case null, default -> null;
         };
     }
@@ -43,15 +99,43 @@ public class SpartieInterpreter {
     // Statement Implementation
     private void interpretWhileStatement(Statement.WhileStatement statement) {
         // TODO: Evaluate the while statement based on the condition
-        while (isTrue(interpret(statement.condition))) {
+        while (interpretCondition(statement.condition)) {
             interpret(statement.body);
+            if (returning) {
+                break;
+            }
         }
     }
 
+    private void interpretForStatement(Statement.ForStatement statement) {
+        // One scope for the whole loop, which holds the loop variable. The body and increment run
+        // in it directly, so iterations allocate nothing unless the body declares variables.
+        SymbolEnvironment previousEnvironment = globalEnvironment;
+        Frame previousFrame = frame;
+        if (globals == null) {
+            if (statement.initializer instanceof Statement.VariableStatement) {
+                globalEnvironment = new SymbolEnvironment(globalEnvironment);
+            }
+        } else if (statement.slots > 0) {
+            frame = new Frame(statement.slots, frame);
+        }
+
+        interpret(statement.initializer);
+        while (interpretCondition(statement.condition)) {
+            interpret(statement.body);
+            if (returning) {
+                break;
+            }
+            interpretEffect(statement.increment);
+        }
+
+        globalEnvironment = previousEnvironment;
+        frame = previousFrame;
+    }
+
     private void interpretIfStatement(Statement.IfStatement statement) {
         // TODO: Evaluate the condition and then execute the appropriate branch
-        Object condition = interpret(statement.condition);
-        if (isTrue(condition)) {
+        if (interpretCondition(statement.condition)) {
             interpret(statement.thenBranch);
         } else if (statement.elseBranch != null) {
             interpret(statement.elseBranch);
@@ -59,54 +143,163 @@ public class SpartieInterpreter {
     }
 
     private void interpretBlockStatement(Statement.BlockStatement statement) {
-        interpretBlock(statement.statements, new Environment(globalEnvironment));
+        if (globals != null) {
+            interpretResolvedBlock(statement);
+            return;
+        }
+        // A block that declares nothing would get a scope that stays empty
+        for (Statement inner : statement.statements) {
+            if (inner instanceof Statement.VariableStatement || inner instanceof Statement.FunctionStatement) {
+                interpretBlock(statement.statements, new SymbolEnvironment(globalEnvironment));
+                return;
+            }
+        }
+        interpretBlock(statement.statements, globalEnvironment);
     }
 
     private void interpretVariableStatement(Statement.VariableStatement statement) {
+        if (globals != null && statement.initializer != null) {
+            long integer = interpretInteger(statement.initializer);
+            if (!notAnInteger) {
+                storeInteger(statement.depth, statement.slot, integer);
+                return;
+            }
+            double number = takeNonIntegral();
+            if (notANumber) {
+                store(statement.depth, statement.slot, takeNonNumeric());
+            } else {
+                storeNumber(statement.depth, statement.slot, number);
+            }
+            return;
+        }
+
         Object value = null;
         if (statement.initializer != null) {
             // Evaluate the variable assignment expression
             value = interpret(statement.initializer);
         }
-        globalEnvironment.define(statement.name.text, value);
+        if (globals == null) {
+            globalEnvironment.define(symbol(statement), value);
+        } else if (statement.depth == Resolver.GLOBAL) {
+            globals[statement.slot] = value;
+        } else {
+            frame.slots[statement.slot] = value;
+        }
+    }
+
+    private void interpretFunctionStatement(Statement.FunctionStatement statement) {
+        if (globals == null) {
+            globalEnvironment.define(SymbolEnvironment.symbol(statement.name.text),
+                    new SpartieFunction(statement, null, globalEnvironment));
+        } else if (statement.depth == Resolver.GLOBAL) {
+            globals[statement.slot] = new SpartieFunction(statement, frame, null);
+        } else {
+            frame.slots[statement.slot] = new SpartieFunction(statement, frame, null);
+        }
+    }
+
+    private void interpretReturnStatement(Statement.ReturnStatement statement) {
+        returnValue = statement.value == null ? null : interpret(statement.value);
+        returning = true;
     }
 
     private void interpretExpressionStatement(Statement.ExpressionStatement statement) {
         // We can re-use our previous interpret
-        interpret(statement.expression);
+        interpretEffect(statement.expression);
+    }
+
+    // Evaluates an expression whose value is not used, so an assignment can store a number without
+    // boxing it
+    private void interpretEffect(Expression expression) {
+        if (globals == null || !(expression instanceof Expression.AssignmentExpression assignment)) {
+            interpret(expression);
+            return;
+        }
+
+        long integer = interpretInteger(assignment.value);
+        if (!notAnInteger) {
+            if (assignment.depth == Resolver.GLOBAL && globals[assignment.slot] == UNDEFINED) {
+                undefined(assignment);
+            }
+            storeInteger(assignment.depth, assignment.slot, integer);
+            return;
+        }
+        double number = takeNonIntegral();
+        if (notANumber) {
+            assign(assignment, takeNonNumeric());
+        } else if (assignment.depth != Resolver.GLOBAL || globals[assignment.slot] != UNDEFINED) {
+            storeNumber(assignment.depth, assignment.slot, number);
+        } else {
+            undefined(assignment);
+        }
     }
 
     private void interpretPrintStatement(Statement.PrintStatement statement) {
         // First evaluate the expression
         Object value = interpret(statement.expression);
 
+        if (value instanceof Double number) {
+            int length = NumberFormatter.toString(number, digits);
+            if (length >= 0) {
+                System.out.println(String.valueOf(digits, 0, length));
+                return;
+            }
+        }
         System.out.println(value.toString());
     }
 
-    private void interpretBlock(List<Statement> statements, Environment environment) {
+    private void interpretBlock(List<Statement> statements, SymbolEnvironment environment) {
         // Store a reference to the previous environment and swap it out with the new
         // environment
-        Environment previous = globalEnvironment;
+        SymbolEnvironment previous = globalEnvironment;
 
         globalEnvironment = environment;
         for (Statement statement : statements) {
             interpret(statement);
+            if (returning) {
+                break;
+            }
         }
 
         // Restore environment
         globalEnvironment = previous;
     }
 
+    private void interpretResolvedBlock(Statement.BlockStatement statement) {
+        // Only blocks that declare variables need a frame
+        if (statement.slots == 0) {
+            for (Statement inner : statement.statements) {
+                interpret(inner);
+                if (returning) {
+                    break;
+                }
+            }
+            return;
+        }
+
+        Frame previous = frame;
+
+        frame = new Frame(statement.slots, previous);
+        for (Statement inner : statement.statements) {
+            interpret(inner);
+            if (returning) {
+                break;
+            }
+        }
+
+        frame = previous;
+    }
+
     private Object interpretLogical(Expression.LogicalExpression logicalExpression) {
         Object left = interpret(logicalExpression.left);
 
         if (logicalExpression.operator.type == TokenType.OR) {
             // Short-circuit
-            if (isTrue(left)) {
+            if (Operations.isTrue(left)) {
                 return left;
             }
         } else {
-            if (!isTrue(left)) {
+            if (!Operations.isTrue(left)) {
                 return left;
             }
         }
@@ -120,13 +313,175 @@ public class SpartieInterpreter {
         // global environment,
         // then return the value
         Object value = interpret(expression.value);
-        globalEnvironment.assign(expression.name, value);
+        assign(expression, value);
         return value;
     }
 
+    private void assign(Expression.AssignmentExpression expression, Object value) {
+        if (globals == null) {
+            globalEnvironment.assign(symbol(expression), value);
+        } else if (expression.depth != Resolver.GLOBAL) {
+            frame.ancestor(expression.depth).slots[expression.slot] = value;
+        } else if (globals[expression.slot] != UNDEFINED) {
+            globals[expression.slot] = value;
+        } else {
+            undefined(expression);
+        }
+    }
+
+    private void undefined(Expression.AssignmentExpression expression) {
+        System.err.println("Undefined variable: " + expression.name.text);
+        System.exit(ErrorCode.INTERPRET_ERROR);
+    }
+
+    // Stores into a resolved variable, depth frames out or global
+    private void store(int depth, int slot, Object value) {
+        if (depth == Resolver.GLOBAL) {
+            globals[slot] = value;
+        } else {
+            frame.ancestor(depth).slots[slot] = value;
+        }
+    }
+
+    private void storeNumber(int depth, int slot, double value) {
+        storeUnboxed(depth, slot, NUMBER, Double.doubleToRawLongBits(value));
+    }
+
+    private void storeInteger(int depth, int slot, long value) {
+        storeUnboxed(depth, slot, INTEGER, value);
+    }
+
+    private void storeUnboxed(int depth, int slot, Object marker, long bits) {
+        if (depth == Resolver.GLOBAL) {
+            globalNumbers[slot] = bits;
+            globals[slot] = marker;
+            return;
+        }
+        Frame target = frame.ancestor(depth);
+        if (target.numbers == null) {
+            target.numbers = new long[target.slots.length];
+        }
+        target.numbers[slot] = bits;
+        target.slots[slot] = marker;
+    }
+
+    // The SymbolEnvironment id of a name, looked up once per node
+    private static int symbol(Expression.VariableExpression expression) {
+        if (expression.symbol == Resolver.UNRESOLVED) {
+            expression.symbol = SymbolEnvironment.symbol(expression.name.text);
+        }
+        return expression.symbol;
+    }
+
+    private static int symbol(Expression.AssignmentExpression expression) {
+        if (expression.symbol == Resolver.UNRESOLVED) {
+            expression.symbol = SymbolEnvironment.symbol(expression.name.text);
+        }
+        return expression.symbol;
+    }
+
+    private static int symbol(Statement.VariableStatement statement) {
+        if (statement.symbol == Resolver.UNRESOLVED) {
+            statement.symbol = SymbolEnvironment.symbol(statement.name.text);
+        }
+        return statement.symbol;
+    }
+
     private Object interpretVariable(Expression.VariableExpression expression) {
         // TODO: Return the value from our global environment
-        return globalEnvironment.get(expression.name.text);
+        if (globals == null) {
+            return globalEnvironment.get(symbol(expression));
+        }
+        if (expression.depth != Resolver.GLOBAL) {
+            Frame target = frame.ancestor(expression.depth);
+            Object value = target.slots[expression.slot];
+            if (value == INTEGER) {
+                return (double) target.numbers[expression.slot];
+            }
+            if (value == NUMBER) {
+                return Double.longBitsToDouble(target.numbers[expression.slot]);
+            }
+            return value;
+        }
+        Object value = globals[expression.slot];
+        if (value == INTEGER) {
+            return (double) globalNumbers[expression.slot];
+        }
+        if (value == NUMBER) {
+            return Double.longBitsToDouble(globalNumbers[expression.slot]);
+        }
+        return value == UNDEFINED ? null : value;
+    }
+
+    // Runs a call whose arguments match the function's parameters and returns its value
+    private Object call(SpartieFunction function, List<Expression> arguments) {
+        Statement.FunctionStatement declaration = function.declaration;
+        if (globals == null) {
+            SymbolEnvironment environment = new SymbolEnvironment(function.environment);
+            for (int i = 0; i < arguments.size(); i++) {
+                environment.define(SymbolEnvironment.symbol(declaration.parameters.get(i).text),
+                        interpret(arguments.get(i)));
+            }
+            interpretBlock(declaration.body, environment);
+        } else {
+            // The arguments go straight into the parameter slots of the new frame
+            Frame callFrame = new Frame(declaration.slots, function.closure);
+            for (int i = 0; i < arguments.size(); i++) {
+                callFrame.slots[i] = interpret(arguments.get(i));
+            }
+
+            Frame previous = frame;
+            frame = callFrame;
+            for (Statement statement : declaration.body) {
+                interpret(statement);
+                if (returning) {
+                    break;
+                }
+            }
+            frame = previous;
+        }
+
+        Object value = returnValue;
+        returning = false;
+        returnValue = null;
+        return value;
+    }
+
+    private Object interpretCall(Expression.CallExpression expression) {
+        Object callee = interpret(expression.callee);
+        List<Expression> arguments = expression.arguments;
+
+        if (callee instanceof SpartieFunction function && function.arity() == arguments.size()) {
+            callDepth++;
+            try {
+                return call(function, arguments);
+            } catch (StackOverflowError e) {
+                if (overflowLine == 0) {
+                    overflowLine = expression.paren.line;
+                }
+                if (callDepth > 1) {
+                    throw e;
+                }
+                System.err.println("Stack overflow on line " + overflowLine);
+                System.exit(ErrorCode.INTERPRET_ERROR);
+                return null;
+            } finally {
+                callDepth--;
+            }
+        }
+
+        // The arguments are still evaluated, in order, before the call fails
+        for (Expression argument : arguments) {
+            interpret(argument);
+        }
+        if (callee instanceof SpartieFunction function) {
+            System.err.println("Expected " + function.arity() + " arguments but got " + arguments.size() + " on line "
+                    + expression.paren.line);
+        } else {
+            System.err.println("Can only call functions on line " + expression.paren.line + " : " + callee);
+        }
+        System.exit(ErrorCode.INTERPRET_ERROR);
+        return null;
     }
 
     private Object interpretLiteral(Expression.LiteralExpression expression) {
@@ -139,111 +494,395 @@ public class SpartieInterpreter {
     }
 
     private Object interpretUnary(Expression.UnaryExpression expression) {
-        Object right = interpret(expression.right);
+        if (expression.operator.type == TokenType.NOT) {
+            return !interpretCondition(expression.right);
+        }
+        return boxed(interpretDouble(expression));
+    }
 
-        switch (expression.operator.type) {
-            case NOT:
-                return !isTrue(right);
-            case SUBTRACT:
-                validateOperand(expression.operator, right);
-                return -(double) right;
+    private Object interpretBinary(Expression.BinaryExpression expression) {
+        if (isCondition(expression.operator.type)) {
+            return interpretCondition(expression);
         }
+        // Only the result is boxed, not the operands
+        return boxed(interpretDouble(expression));
+    }
 
-        return null;
+    // Typed evaluation
+
+    // The value of an expression an operator needs a number from. Anything else is handed back
+    // through notANumber and nonNumeric, see above.
+    private double interpretDouble(Expression expression) {
+        // Tested with instanceof rather than a type switch: calls and other nodes that are not
+        // numeric operators fall through to interpret(), and should not pay for two dispatches
+        if (expression instanceof Expression.BinaryExpression binaryExpression) {
+            return interpretDoubleBinary(binaryExpression);
+        }
+        if (expression instanceof Expression.VariableExpression variableExpression) {
+            return interpretDoubleVariable(variableExpression);
+        }
+        if (expression instanceof Expression.LiteralExpression literalExpression) {
+            return number(literalExpression.literalValue);
+        }
+        if (expression instanceof Expression.UnaryExpression unaryExpression
+                && unaryExpression.operator.type == TokenType.SUBTRACT) {
+            double right = interpretDouble(unaryExpression.right);
+            if (notANumber) {
+                return number(Operations.unary(TokenType.SUBTRACT, unaryExpression.operator.line, takeNonNumeric()));
+            }
+            return -right;
+        }
+        if (expression instanceof Expression.ParenthesesExpression parenthesesExpression) {
+            return interpretDouble(parenthesesExpression.expression);
+        }
+        return number(interpret(expression));
     }
 
-    private Object interpretBinary(Expression.BinaryExpression expression) {
-        Object left = interpret(expression.left);
-        Object right = interpret(expression.right);
-
-        // Handle unique case with add operator that can be applied to Strings and
-        // Doubles
-        if (expression.operator.type == TokenType.ADD) {
-            if (left instanceof Double && right instanceof Double) {
-                return (double) left + (double) right;
-            } else if (left instanceof String && right instanceof String) {
-                return (String) left + (String) right;
-            } else if ((left instanceof String || right instanceof String)
-                    && (left instanceof Double || right instanceof Double)) {
-                if (left instanceof Double) {
-                    return String.format("%.2f%s", (Double) left, (String) right);
-                } else {
-                    return String.format("%s%.2f", (String) left, (Double) right);
+    private double interpretDoubleVariable(Expression.VariableExpression expression) {
+        if (globals == null) {
+            return number(globalEnvironment.get(symbol(expression)));
+        }
+        Object value;
+        if (expression.depth != Resolver.GLOBAL) {
+            Frame target = frame.ancestor(expression.depth);
+            value = target.slots[expression.slot];
+            if (value == INTEGER) {
+                return target.numbers[expression.slot];
+            }
+            if (value == NUMBER) {
+                return Double.longBitsToDouble(target.numbers[expression.slot]);
+            }
+        } else {
+            value = globals[expression.slot];
+            if (value == INTEGER) {
+                return globalNumbers[expression.slot];
+            }
+            if (value == NUMBER) {
+                return Double.longBitsToDouble(globalNumbers[expression.slot]);
+            }
+            if (value == UNDEFINED) {
+                value = null;
+            }
+        }
+        return number(value);
+    }
+
+    private double interpretDoubleBinary(Expression.BinaryExpression expression) {
+        TokenType operator = expression.operator.type;
+        switch (operator) {
+            case ADD, SUBTRACT, MULTIPLY: {
+                long integer = interpretIntegerBinary(expression);
+                return notAnInteger ? takeNonIntegral() : integer;
+            }
+            case DIVIDE:
+                break;
+            default:
+                return number(interpretCondition(expression));
+        }
+
+        // Operands that are not both numbers go to Operations, for strings and type errors
+        double left = interpretDouble(expression.left);
+        if (notANumber) {
+            Object leftValue = takeNonNumeric();
+            return number(binary(operator, expression.operator.line, leftValue,
+                    interpret(expression.right)));
+        }
+        double right = interpretDouble(expression.right);
+        if (notANumber) {
+            return number(binary(operator, expression.operator.line, left, takeNonNumeric()));
+        }
+        return left / right;
+    }
+
+    // The value of an expression an operator needs a number from, as a long when it is a whole
+    // number that long arithmetic keeps exact. Anything else is handed back through notAnInteger
+    // and nonIntegral, with notANumber set as well when it is not a number at all.
+    private long interpretInteger(Expression expression) {
+        if (expression instanceof Expression.BinaryExpression binaryExpression) {
+            switch (binaryExpression.operator.type) {
+                case ADD, SUBTRACT, MULTIPLY:
+                    return interpretIntegerBinary(binaryExpression);
+                default:
+                    // A quotient is a double even when it happens to be whole
+                    return nonInteger(interpretDoubleBinary(binaryExpression));
+            }
+        }
+        if (expression instanceof Expression.VariableExpression variableExpression) {
+            return interpretIntegerVariable(variableExpression);
+        }
+        if (expression instanceof Expression.LiteralExpression literalExpression) {
+            if (literalExpression.isInteger) {
+                return literalExpression.integerValue;
+            }
+            return nonInteger(number(literalExpression.literalValue));
+        }
+        if (expression instanceof Expression.UnaryExpression unaryExpression
+                && unaryExpression.operator.type == TokenType.SUBTRACT) {
+            long right = interpretInteger(unaryExpression.right);
+            if (notAnInteger) {
+                double rightNumber = takeNonIntegral();
+                if (notANumber) {
+                    return integral(number(Operations.unary(TokenType.SUBTRACT, unaryExpression.operator.line,
+                            takeNonNumeric())));
                 }
+                return nonInteger(-rightNumber);
             }
+            // Negating 0 gives -0.0, which only a double holds
+            return right == 0 ? nonInteger(-0.0) : -right;
         }
+        if (expression instanceof Expression.ParenthesesExpression parenthesesExpression) {
+            return interpretInteger(parenthesesExpression.expression);
+        }
+        return integral(number(interpret(expression)));
+    }
 
-        switch (expression.operator.type) {
-            case EQUIVALENT:
-                return isEquivalent(left, right);
-            case NOT_EQUAL:
-                return !isEquivalent(left, right);
+    // Variables stored as doubles stay doubles; boxed values, such as arguments, are checked
+    // interpretInteger for a right operand, which in counting loops (i + 1, i < n) is usually an
+    // integer literal that needs no dispatch
+    private long integerOperand(Expression expression) {
+        if (expression instanceof Expression.LiteralExpression literalExpression && literalExpression.isInteger) {
+            return literalExpression.integerValue;
+        }
+        return interpretInteger(expression);
+    }
+
+    private long interpretIntegerVariable(Expression.VariableExpression expression) {
+        if (globals == null) {
+            return integral(number(globalEnvironment.get(symbol(expression))));
+        }
+        Object value;
+        long bits;
+        if (expression.depth != Resolver.GLOBAL) {
+            Frame target = frame.ancestor(expression.depth);
+            value = target.slots[expression.slot];
+            bits = value == INTEGER || value == NUMBER ? target.numbers[expression.slot] : 0;
+        } else {
+            value = globals[expression.slot];
+            bits = value == INTEGER || value == NUMBER ? globalNumbers[expression.slot] : 0;
+            if (value == UNDEFINED) {
+                value = null;
+            }
+        }
+        if (value == INTEGER) {
+            return bits;
+        }
+        if (value == NUMBER) {
+            return nonInteger(Double.longBitsToDouble(bits));
         }
+        return integral(number(value));
+    }
 
-        // If we ge this far, then validate operands
-        validateOperands(expression.operator, left, right);
+    // An addition, subtraction or multiplication
+    private long interpretIntegerBinary(Expression.BinaryExpression expression) {
+        TokenType operator = expression.operator.type;
+        int line = expression.operator.line;
+
+        long left = interpretInteger(expression.left);
+        if (notAnInteger) {
+            double leftNumber = takeNonIntegral();
+            // Operands that are not both numbers go to Operations, for strings and type errors
+            if (notANumber) {
+                Object leftValue = takeNonNumeric();
+                return integral(number(binary(operator, line, leftValue, interpret(expression.right))));
+            }
+            double right = interpretDouble(expression.right);
+            if (notANumber) {
+                return integral(number(binary(operator, line, leftNumber, takeNonNumeric())));
+            }
+            return nonInteger(arithmetic(operator, leftNumber, right));
+        }
+        long right = integerOperand(expression.right);
+        if (notAnInteger) {
+            double rightNumber = takeNonIntegral();
+            if (notANumber) {
+                return integral(number(binary(operator, line, (double) left, takeNonNumeric())));
+            }
+            return nonInteger(arithmetic(operator, left, rightNumber));
+        }
 
-        switch (expression.operator.type) {
-            case SUBTRACT:
-                return (double) left + (double) right;
-            case MULTIPLY:
-                return (double) left * (double) right;
-            case DIVIDE:
-                return (double) left / (double) right;
+        if (operator == TokenType.MULTIPLY) {
+            long product = left * right;
+            // A zero product with a negative operand is -0.0 in double arithmetic
+            if (Math.multiplyHigh(left, right) == product >> 63 && isExact(product)
+                    && (product != 0 || (left | right) >= 0)) {
+                return product;
+            }
+            return nonInteger((double) left * (double) right);
+        }
+        // Subtraction adds in Spartie. Both operands are at most 2^53, so the sum cannot overflow.
+        long sum = left + right;
+        return isExact(sum) ? sum : nonInteger((double) left + (double) right);
+    }
+
+    private static double arithmetic(TokenType operator, double left, double right) {
+        return operator == TokenType.MULTIPLY ? left * right : left + right;
+    }
+
+    // Whether an expression used as a condition is true, without boxing the Boolean or the
+    // numbers it compares. Dispatches like interpretDouble.
+    private boolean interpretCondition(Expression expression) {
+        if (expression instanceof Expression.BinaryExpression binaryExpression
+                && isCondition(binaryExpression.operator.type)) {
+            return interpretComparison(binaryExpression);
+        }
+        // left | right is true when either is, and left & right when both are, with the same
+        // short-circuiting
+        if (expression instanceof Expression.LogicalExpression logicalExpression) {
+            if (logicalExpression.operator.type == TokenType.OR) {
+                return interpretCondition(logicalExpression.left) || interpretCondition(logicalExpression.right);
+            }
+            return interpretCondition(logicalExpression.left) && interpretCondition(logicalExpression.right);
+        }
+        if (expression instanceof Expression.UnaryExpression unaryExpression
+                && unaryExpression.operator.type == TokenType.NOT) {
+            return !interpretCondition(unaryExpression.right);
+        }
+        if (expression instanceof Expression.ParenthesesExpression parenthesesExpression) {
+            return interpretCondition(parenthesesExpression.expression);
+        }
+        return Operations.isTrue(interpret(expression));
+    }
+
+    private boolean interpretComparison(Expression.BinaryExpression expression) {
+        TokenType operator = expression.operator.type;
+        int line = expression.operator.line;
+
+        long left = interpretInteger(expression.left);
+        if (notAnInteger) {
+            double leftNumber = takeNonIntegral();
+            if (notANumber) {
+                Object leftValue = takeNonNumeric();
+                return (boolean) binary(operator, line, leftValue, interpret(expression.right));
+            }
+            double right = interpretDouble(expression.right);
+            if (notANumber) {
+                return (boolean) binary(operator, line, leftNumber, takeNonNumeric());
+            }
+            return compare(operator, leftNumber, right);
+        }
+        long right = integerOperand(expression.right);
+        if (notAnInteger) {
+            double rightNumber = takeNonIntegral();
+            if (notANumber) {
+                return (boolean) binary(operator, line, (double) left, takeNonNumeric());
+            }
+            return compare(operator, left, rightNumber);
+        }
+
+        switch (operator) {
+            case LESS_THAN:
+                return left < right;
+            case LESS_EQUAL:
+                return left <= right;
             case GREATER_THAN:
-                return (double) left > (double) right;
+                return left > right;
             case GREATER_EQUAL:
-                return (double) left >= (double) right;
+                return left >= right;
+            case EQUIVALENT:
+                return left == right;
+            default:
+                return left != right;
+        }
+    }
+
+    private static boolean compare(TokenType operator, double left, double right) {
+        switch (operator) {
             case LESS_THAN:
-                return (double) left < (double) right;
+                return left < right;
             case LESS_EQUAL:
-                return (double) left <= (double) right;
+                return left <= right;
+            case GREATER_THAN:
+                return left > right;
+            case GREATER_EQUAL:
+                return left >= right;
+            // Double.equals, as Operations.isEquivalent uses: NaN equals itself and 0.0 is not -0.0
+            case EQUIVALENT:
+                return Double.doubleToLongBits(left) == Double.doubleToLongBits(right);
+            default:
+                return Double.doubleToLongBits(left) != Double.doubleToLongBits(right);
         }
+    }
 
-        return null;
+    // Operations.binary, except that concatenation builds a Rope once the result gets long, and
+    // Ropes are flattened for every other operator
+    private Object binary(TokenType operator, int line, Object left, Object right) {
+        if (operator == TokenType.ADD) {
+            // The same text Operations makes: numbers with two decimals
+            if (left instanceof CharSequence leftText) {
+                if (right instanceof CharSequence rightText) {
+                    return Rope.concat(leftText, rightText);
+                } else if (right instanceof Double number) {
+                    int length = NumberFormatter.fixed2(number, digits);
+                    return length >= 0 ? Rope.concat(leftText, digits, length)
+                            : Rope.concat(leftText, NumberFormatter.fixed2(number));
+                }
+            } else if (left instanceof Double number && right instanceof CharSequence rightText) {
+                return Rope.concat(NumberFormatter.fixed2(number), rightText);
+            }
+        }
+        return Operations.binary(operator, line, Rope.flat(left), Rope.flat(right));
     }
 
-    // Helper Methods
+    // Operators whose result is a Boolean
+    private static boolean isCondition(TokenType operator) {
+        switch (operator) {
+            case LESS_THAN, LESS_EQUAL, GREATER_THAN, GREATER_EQUAL, EQUIVALENT, NOT_EQUAL:
+                return true;
+            default:
+                return false;
+        }
+    }
 
-    // Test equivalency
-    private boolean isEquivalent(Object left, Object right) {
-        // They are equal under the following conditions:
-        // 1. They are both null
-        // 2. The equals method returns true (String or Double)
+    // value as a double, or notANumber
+    private double number(Object value) {
+        if (value instanceof Double number) {
+            return number;
+        }
+        notANumber = true;
+        nonNumeric = value;
+        return 0;
+    }
 
-        // We have to account a NPE
-        if (left == null && right == null)
-            return true;
-        if (left == null || right == null)
-            return false;
+    // number as a long if it is a whole number no larger than MAX_EXACT and not -0.0, or
+    // notAnInteger. A value that is not a number at all stays notANumber as well.
+    private long integral(double number) {
+        if (!notANumber && isInteger(number)) {
+            return (long) number;
+        }
+        return nonInteger(number);
+    }
 
-        return left.equals(right);
+    static boolean isInteger(double number) {
+        long integer = (long) number;
+        return integer == number && isExact(integer) && (integer != 0 || Double.doubleToRawLongBits(number) == 0);
     }
 
-    // False is literal false or null
-    private boolean isTrue(Object object) {
-        if (object == null)
-            return false;
-        if (object instanceof Boolean)
-            return (boolean) object;
-        return true;
+    private static boolean isExact(long integer) {
+        return integer >= -MAX_EXACT && integer <= MAX_EXACT;
     }
 
-    // Validate the type
-    private void validateOperand(Token operator, Object operand) {
-        if (operand instanceof Double)
-            return;
-        error("Invalid type on line " + operator.line + " : " + operator.text + operand);
+    private long nonInteger(double number) {
+        notAnInteger = true;
+        nonIntegral = number;
+        return 0;
     }
 
-    private void validateOperands(Token operator, Object operand1, Object operand2) {
-        if (operand1 instanceof Double && operand2 instanceof Double)
-            return;
-        error("Invalid type on line " + operator.line + " : " + operand1 + operator.text + operand2);
+    // The value interpretDouble gave up on
+    private Object takeNonNumeric() {
+        Object value = nonNumeric;
+        notANumber = false;
+        nonNumeric = null;
+        return value;
+    }
+
+    // The value interpretInteger gave up on, meaningless if notANumber is still set
+    private double takeNonIntegral() {
+        notAnInteger = false;
+        return nonIntegral;
     }
 
-    private void error(String message) {
-        System.err.println(message);
-        System.exit(2);
+    // The result of interpretDouble as an Object
+    private Object boxed(double number) {
+        return notANumber ? takeNonNumeric() : (Object) number;
     }
 }
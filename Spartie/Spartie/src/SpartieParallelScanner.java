@@ -0,0 +1,143 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Scans large sources in parallel. No token spans a newline (strings may not contain one and
+// comments end at one), so the source is cut into chunks at line boundaries and each chunk is
+// lexed on its own. A first parallel pass counts newlines so every chunk starts on the right line,
+// then the token runs are joined in order. The result is the same as SpartieTableScanner.scan().
+public class SpartieParallelScanner {
+    // Below this size splitting costs more than it saves
+    private static final int MIN_CHUNK_SIZE = 256 * 1024;
+
+    private final CharSequence source;
+    private final ForkJoinPool pool;
+
+    public SpartieParallelScanner(CharSequence source) {
+        this(source, ForkJoinPool.commonPool());
+    }
+
+    public SpartieParallelScanner(CharSequence source, ForkJoinPool pool) {
+        this.source = source;
+        this.pool = pool;
+    }
+
+    public List<Token> scan() {
+        int[] boundaries = chunkBoundaries();
+        int chunks = boundaries.length - 1;
+        if (chunks == 1) {
+            return new SpartieTableScanner(source).scan();
+        }
+
+        // Lines per chunk, turned into the first line of each chunk
+        int[] lines = new int[chunks];
+        pool.invoke(new ChunkAction(0, chunks,
+                chunk -> lines[chunk] = countNewlines(boundaries[chunk], boundaries[chunk + 1])));
+        int line = 1;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int newlines = lines[chunk];
+            lines[chunk] = line;
+            line += newlines;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<Token>[] runs = new List[chunks];
+        SpartieTableScanner.ScanError[] errors = new SpartieTableScanner.ScanError[chunks];
+        pool.invoke(new ChunkAction(0, chunks, chunk -> {
+            SpartieTableScanner scanner = new SpartieTableScanner(source, boundaries[chunk], boundaries[chunk + 1],
+                    lines[chunk], new SymbolTable());
+            try {
+                runs[chunk] = scanner.scan();
+            } catch (SpartieTableScanner.ScanError error) {
+                errors[chunk] = error;
+            }
+        }));
+
+        // Report the same error the sequential scanner would have stopped at
+        for (SpartieTableScanner.ScanError error : errors) {
+            if (error != null) {
+                SpartieTableScanner.report(error.line, error.getMessage());
+            }
+        }
+
+        int size = 1;
+        for (List<Token> run : runs) {
+            size += run.size() - 1;
+        }
+        List<Token> tokens = new ArrayList<>(size);
+        for (List<Token> run : runs) {
+            // Every run ends with its own EOF
+            tokens.addAll(run.subList(0, run.size() - 1));
+        }
+        tokens.add(runs[chunks - 1].get(runs[chunks - 1].size() - 1));
+
+        return tokens;
+    }
+
+    // Chunk start offsets, each just past a newline, followed by the end of the source
+    private int[] chunkBoundaries() {
+        int length = source.length();
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, length / (pool.getParallelism() * 4) + 1);
+
+        List<Integer> boundaries = new ArrayList<>();
+        boundaries.add(0);
+        int position = chunkSize;
+        while (position < length) {
+            while (position < length && source.charAt(position - 1) != '\n') {
+                position++;
+            }
+            if (position < length) {
+                boundaries.add(position);
+            }
+            position += chunkSize;
+        }
+        boundaries.add(length);
+
+        return boundaries.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int countNewlines(int start, int end) {
+        int newlines = 0;
+        for (int i = start; i < end; i++) {
+            if (source.charAt(i) == '\n') {
+                newlines++;
+            }
+        }
+        return newlines;
+    }
+
+    private interface ChunkTask {
+        void run(int chunk);
+    }
+
+    // Runs a task for every chunk in [from, to), splitting down to one chunk per action
+    private static class ChunkAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        // Never serialized; tasks only run in this process's pool
+        private final transient ChunkTask task;
+
+        ChunkAction(int from, int to, ChunkTask task) {
+            this.from = from;
+            this.to = to;
+            this.task = task;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                task.run(from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkAction(from, middle, task), new ChunkAction(middle, to, task));
+        }
+    }
+}
@@ -3,7 +3,6 @@
  * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
  */
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 // From Crafting Interpreters
@@ -11,11 +10,48 @@ public class SpartieParser {
     private static class ParseError extends RuntimeException {
     }
 
-    private List<Token> tokens;
-    private int current = 0;
+    // Binding power of each binary operator for the precedence climbing expression parser, indexed
+    // by TokenType ordinal. Zero means the token is not a binary operator.
+    private static final int OR_PRECEDENCE = 1;
+    private static final int AND_PRECEDENCE = 2;
+    private static final int EQUALITY_PRECEDENCE = 3;
+    private static final int COMPARISON_PRECEDENCE = 4;
+    private static final int TERM_PRECEDENCE = 5;
+    private static final int FACTOR_PRECEDENCE = 6;
+    private static final int[] PRECEDENCE = new int[TokenType.values().length];
+    static {
+        PRECEDENCE[TokenType.OR.ordinal()] = OR_PRECEDENCE;
+        PRECEDENCE[TokenType.AND.ordinal()] = AND_PRECEDENCE;
+        PRECEDENCE[TokenType.NOT_EQUAL.ordinal()] = EQUALITY_PRECEDENCE;
+        PRECEDENCE[TokenType.EQUIVALENT.ordinal()] = EQUALITY_PRECEDENCE;
+        PRECEDENCE[TokenType.GREATER_THAN.ordinal()] = COMPARISON_PRECEDENCE;
+        PRECEDENCE[TokenType.GREATER_EQUAL.ordinal()] = COMPARISON_PRECEDENCE;
+        PRECEDENCE[TokenType.LESS_THAN.ordinal()] = COMPARISON_PRECEDENCE;
+        PRECEDENCE[TokenType.LESS_EQUAL.ordinal()] = COMPARISON_PRECEDENCE;
+        PRECEDENCE[TokenType.SUBTRACT.ordinal()] = TERM_PRECEDENCE;
+        PRECEDENCE[TokenType.ADD.ordinal()] = TERM_PRECEDENCE;
+        PRECEDENCE[TokenType.DIVIDE.ordinal()] = FACTOR_PRECEDENCE;
+        PRECEDENCE[TokenType.MULTIPLY.ordinal()] = FACTOR_PRECEDENCE;
+    }
+
+    private TokenStream tokens;
+    private boolean precedenceClimbing;
+    // How many function bodies enclose the current token, so return can be rejected outside them
+    private int functionDepth = 0;
 
     public SpartieParser(List<Token> tokens) {
+        this(new ListTokenStream(tokens));
+    }
+
+    public SpartieParser(TokenStream tokens) {
+        this(tokens, false);
+    }
+
+    // With precedenceClimbing, expressions are parsed from the PRECEDENCE table in one loop instead
+    // of one method per precedence level. Both build the same trees.
+    public SpartieParser(TokenStream tokens, boolean precedenceClimbing) {
         this.tokens = tokens;
+        this.precedenceClimbing = precedenceClimbing;
     }
 
     public List<Statement> parse() {
@@ -30,6 +66,8 @@ public class SpartieParser {
     private Statement declaration() {
         if (match(TokenType.VAR)) {
             return variableDeclaration();
+        } else if (match(TokenType.FUN)) {
+            return functionDeclaration();
         } else {
             return statement();
         }
@@ -46,11 +84,54 @@ public class SpartieParser {
             return whileStatement();
         } else if (match(TokenType.FOR)) {
             return forStatement();
+        } else if (match(TokenType.RETURN)) {
+            return returnStatement();
         }
 
         return expressionStatement();
     }
 
+    private Statement functionDeclaration() {
+        Token name = consume(TokenType.IDENTIFIER, "Expected function name.");
+        consume(TokenType.LEFT_PAREN, "Missing '(' after function name.");
+
+        List<Token> parameters = new ArrayList<>();
+        if (!check(TokenType.RIGHT_PAREN)) {
+            do {
+                Token parameter = consume(TokenType.IDENTIFIER, "Expected parameter name.");
+                for (Token other : parameters) {
+                    if (other.text.equals(parameter.text)) {
+                        throw error(parameter, "Duplicate parameter name.");
+                    }
+                }
+                parameters.add(parameter);
+            } while (match(TokenType.COMMA));
+        }
+        consume(TokenType.RIGHT_PAREN, "Expect ')' after parameters.");
+        consume(TokenType.LEFT_BRACE, "Expected '{' before function body.");
+
+        functionDepth++;
+        List<Statement> body = block();
+        functionDepth--;
+
+        return new Statement.FunctionStatement(name, parameters, body);
+    }
+
+    private Statement returnStatement() {
+        Token keyword = previous();
+        if (functionDepth == 0) {
+            throw error(keyword, "Can't return from top-level code.");
+        }
+
+        Expression value = null;
+        if (!check(TokenType.SEMICOLON)) {
+            value = expression();
+        }
+        consume(TokenType.SEMICOLON, "Expected ';' after return value.");
+
+        return new Statement.ReturnStatement(keyword, value);
+    }
+
     private Statement forStatement() {
         consume(TokenType.LEFT_PAREN, "Missing '(' after 'for'.");
 
@@ -76,25 +157,11 @@ public class SpartieParser {
         consume(TokenType.RIGHT_PAREN, "Expect ')' after for condition.");
         Statement body = statement();
 
-        // TODO: We have the initializer, we have the condition, we have the increment.
-        // Take those components
-        // and convert into while loop. Hint: Build a block statement and then a while
-        // statement using the condition.
-        if (increment != null) {
-            body = new Statement.BlockStatement(Arrays.asList(body, new Statement.ExpressionStatement(increment)));
-        }
-
         if (condition == null) {
             condition = new Expression.LiteralExpression(true);
         }
 
-        body = new Statement.WhileStatement(condition, body);
-
-        if (initializer != null) {
-            body = new Statement.BlockStatement(Arrays.asList(initializer, body));
-        }
-
-        return body;
+        return new Statement.ForStatement(initializer, condition, increment, body);
     }
 
     private Statement whileStatement() {
@@ -206,9 +273,63 @@ public class SpartieParser {
     }
 
     private Expression expression() {
+        if (precedenceClimbing) {
+            return precedenceAssignment();
+        }
         return assignment();
     }
 
+    // Precedence climbing
+    private Expression precedenceAssignment() {
+        Expression expression = binary(OR_PRECEDENCE);
+
+        if (match(TokenType.ASSIGN)) {
+            Token equals = previous();
+            Expression value = precedenceAssignment();
+
+            if (expression instanceof Expression.VariableExpression) {
+                Token name = ((Expression.VariableExpression) expression).name;
+                return new Expression.AssignmentExpression(name, value);
+            }
+
+            throw error(equals, "Invalid assignment");
+        }
+
+        return expression;
+    }
+
+    // Parses operators that bind at least as tightly as minimum, all of them left associative
+    private Expression binary(int minimum) {
+        Expression expression = prefix();
+
+        while (true) {
+            Token operator = peek();
+            int precedence = PRECEDENCE[operator.type.ordinal()];
+            if (precedence < minimum || precedence == 0) {
+                return expression;
+            }
+            advance();
+
+            Expression right = binary(precedence + 1);
+            if (precedence <= AND_PRECEDENCE) {
+                expression = new Expression.LogicalExpression(expression, operator, right);
+            } else {
+                expression = new Expression.BinaryExpression(expression, operator, right);
+            }
+        }
+    }
+
+    private Expression prefix() {
+        TokenType type = peek().type;
+        if (type == TokenType.NOT || type == TokenType.SUBTRACT) {
+            Token operator = advance();
+            Expression right = prefix();
+            return new Expression.UnaryExpression(operator, right);
+        }
+
+        return call();
+    }
+
     private Expression equality() {
         Expression expression = comparison();
 
@@ -264,7 +385,24 @@ public class SpartieParser {
             return new Expression.UnaryExpression(operator, right);
         }
 
-        return primary();
+        return call();
+    }
+
+    private Expression call() {
+        Expression expression = primary();
+
+        while (match(TokenType.LEFT_PAREN)) {
+            List<Expression> arguments = new ArrayList<>();
+            if (!check(TokenType.RIGHT_PAREN)) {
+                do {
+                    arguments.add(expression());
+                } while (match(TokenType.COMMA));
+            }
+            Token paren = consume(TokenType.RIGHT_PAREN, "Expect ')' after arguments.");
+            expression = new Expression.CallExpression(expression, paren, arguments);
+        }
+
+        return expression;
     }
 
     private Expression primary() {
@@ -277,7 +415,7 @@ public class SpartieParser {
         if (match(TokenType.NULL))
             return new Expression.LiteralExpression(null);
 
-        if (match(TokenType.NUMBER, TokenType.STRING)) {
+        if (match(TokenType.NUMBER) || match(TokenType.STRING)) {
             return new Expression.LiteralExpression(previous().literal);
         }
 
@@ -308,6 +446,14 @@ public class SpartieParser {
     }
 
     // Utility functions
+    private boolean match(TokenType type) {
+        if (check(type)) {
+            advance();
+            return true;
+        }
+        return false;
+    }
+
     private boolean match(TokenType... types) {
         for (TokenType type : types) {
             if (check(type)) {
@@ -326,7 +472,7 @@ public class SpartieParser {
 
     private Token advance() {
         if (!isAtEnd())
-            current++;
+            tokens.advance();
         return previous();
     }
 
@@ -335,10 +481,10 @@ public class SpartieParser {
     }
 
     private Token peek() {
-        return tokens.get(current);
+        return tokens.peek();
     }
 
     private Token previous() {
-        return tokens.get(current - 1);
+        return tokens.previous();
     }
 }
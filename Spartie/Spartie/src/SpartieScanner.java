@@ -3,47 +3,47 @@
  * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
  */
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class SpartieScanner {
-    private String source;
+    private CharSequence source;
 
     private int start = 0;
     private int current = 0;
     private int line = 1;
 
-    private static final Map<String, TokenType> keywords = new HashMap<>();
-    static {
-        keywords.put("if", TokenType.IF);
-        keywords.put("else", TokenType.ELSE);
-        keywords.put("for", TokenType.FOR);
-        keywords.put("while", TokenType.WHILE);
-        keywords.put("true", TokenType.TRUE);
-        keywords.put("false", TokenType.FALSE);
-        keywords.put("fun", TokenType.FUN);
-        keywords.put("return", TokenType.RETURN);
-        keywords.put("var", TokenType.VAR);
-        keywords.put("print", TokenType.PRINT);
-        keywords.put("null", TokenType.NULL);
+    private SymbolTable symbols;
+    private NumberLiterals numbers = new NumberLiterals();
+
+    public SpartieScanner(CharSequence source) {
+        this(source, new SymbolTable());
     }
 
-    public SpartieScanner(String source) {
+    public SpartieScanner(CharSequence source, SymbolTable symbols) {
         this.source = source;
+        this.symbols = symbols;
     }
 
     public List<Token> scan() {
         List<Token> tokens = new ArrayList<>();
 
+        Token token;
+        while ((token = nextToken()).type != TokenType.EOF) {
+            tokens.add(token);
+        }
+        tokens.add(token);
+
+        return tokens;
+    }
+
+    // Returns the next token that is not ignored, or an EOF token once the source is exhausted
+    public Token nextToken() {
         Token token = null;
         while (!isAtEnd() && (token = getNextToken()) != null) {
             if (token.type != TokenType.IGNORE)
-                tokens.add(token);
+                return token;
         }
-        tokens.add(new Token(TokenType.EOF, null, line));
-
-        return tokens;
+        return new Token(TokenType.EOF, null, line);
     }
 
     private Token getNextToken() {
@@ -99,14 +99,12 @@ public class SpartieScanner {
 
                 nextCharacter = source.charAt(current);
             }
-            String identifierOrKeyword = source.substring(start, current);
+            // Repeated names share the interned String
+            String identifierOrKeyword = symbols.name(symbols.intern(source, start, current));
 
-            // It is a keyword
-            if (keywords.containsKey(identifierOrKeyword)) {
-                return new Token(keywords.get(identifierOrKeyword), identifierOrKeyword, line, identifierOrKeyword);
-            } else {
-                return new Token(TokenType.IDENTIFIER, identifierOrKeyword, line, identifierOrKeyword);
-            }
+            // IDENTIFIER unless it is a keyword
+            TokenType type = Keywords.lookup(source, start, current);
+            return new Token(type, identifierOrKeyword, line, identifierOrKeyword);
         }
         return null;
     }
@@ -131,8 +129,8 @@ public class SpartieScanner {
 
                 nextCharacter = source.charAt(current);
             }
-            String numberString = source.substring(start, current);
-            Double numberValue = Double.parseDouble(numberString);
+            String numberString = source.subSequence(start, current).toString();
+            Double numberValue = numbers.parse(source, start, current);
 
             return new Token(TokenType.NUMBER, numberString, line, numberValue);
 
@@ -158,7 +156,7 @@ public class SpartieScanner {
                 }
                 if (source.charAt(temp_current) == '"') {
                     // We have our string
-                    string = source.substring(current + 1, temp_current);
+                    string = source.subSequence(current + 1, temp_current).toString();
 
                     // Update our current
                     current = temp_current + 1;
@@ -200,7 +198,7 @@ public class SpartieScanner {
             if (type == TokenType.NOT_EQUAL || type == TokenType.EQUIVALENT || type == TokenType.LESS_EQUAL
                     || type == TokenType.GREATER_EQUAL) {
                 current += 2;
-                return new Token(type, source.substring(current - 2, current), line);
+                return new Token(type, source.subSequence(current - 2, current).toString(), line);
             } else {
                 // Otherwise, we had one character token
                 current++;
@@ -0,0 +1,316 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.ArrayList;
+import java.util.List;
+
+// Table-driven scanner: every character is classified once through CHARACTER_CLASSES and
+// whitespace and comments are skipped without creating IGNORE tokens. Produces the same
+// token stream as SpartieScanner.
+public class SpartieTableScanner {
+    // Raised instead of exiting when the scanner covers only part of a source
+    static class ScanError extends RuntimeException {
+        final int line;
+
+        ScanError(int line, String message) {
+            super(message);
+            this.line = line;
+        }
+    }
+
+    // Character classes
+    private static final byte INVALID = 0;
+    private static final byte WHITESPACE = 1;
+    private static final byte NEWLINE = 2;
+    private static final byte SINGLE = 3; // ( ) { } , - + * ; & |
+    private static final byte COMPARISON = 4; // ! = < > (optionally followed by =)
+    private static final byte SLASH = 5;
+    private static final byte QUOTE = 6;
+    private static final byte DIGIT = 7;
+    private static final byte ALPHA = 8;
+
+    private static final byte[] CHARACTER_CLASSES = new byte[128];
+    private static final TokenType[] SINGLE_TYPES = new TokenType[128];
+    private static final TokenType[] EQUAL_TYPES = new TokenType[128];
+    private static final String[] SINGLE_TEXT = new String[128];
+    private static final String[] EQUAL_TEXT = new String[128];
+
+    static {
+        CHARACTER_CLASSES[' '] = WHITESPACE;
+        CHARACTER_CLASSES['\t'] = WHITESPACE;
+        CHARACTER_CLASSES['\n'] = NEWLINE;
+        CHARACTER_CLASSES['/'] = SLASH;
+        CHARACTER_CLASSES['"'] = QUOTE;
+        for (char c = '0'; c <= '9'; c++) {
+            CHARACTER_CLASSES[c] = DIGIT;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            CHARACTER_CLASSES[c] = ALPHA;
+            CHARACTER_CLASSES[Character.toUpperCase(c)] = ALPHA;
+        }
+
+        single('(', TokenType.LEFT_PAREN);
+        single(')', TokenType.RIGHT_PAREN);
+        single('{', TokenType.LEFT_BRACE);
+        single('}', TokenType.RIGHT_BRACE);
+        single(',', TokenType.COMMA);
+        single('-', TokenType.SUBTRACT);
+        single('+', TokenType.ADD);
+        single('*', TokenType.MULTIPLY);
+        single(';', TokenType.SEMICOLON);
+        single('&', TokenType.AND);
+        single('|', TokenType.OR);
+
+        comparison('!', TokenType.NOT, TokenType.NOT_EQUAL);
+        comparison('=', TokenType.ASSIGN, TokenType.EQUIVALENT);
+        comparison('<', TokenType.LESS_THAN, TokenType.LESS_EQUAL);
+        comparison('>', TokenType.GREATER_THAN, TokenType.GREATER_EQUAL);
+
+        // The divide is a single character token unless it starts a comment
+        SINGLE_TYPES['/'] = TokenType.DIVIDE;
+        SINGLE_TEXT['/'] = "/";
+    }
+
+    private static void single(char character, TokenType type) {
+        CHARACTER_CLASSES[character] = SINGLE;
+        SINGLE_TYPES[character] = type;
+        SINGLE_TEXT[character] = String.valueOf(character);
+    }
+
+    private static void comparison(char character, TokenType type, TokenType withEqual) {
+        CHARACTER_CLASSES[character] = COMPARISON;
+        SINGLE_TYPES[character] = type;
+        SINGLE_TEXT[character] = String.valueOf(character);
+        EQUAL_TYPES[character] = withEqual;
+        EQUAL_TEXT[character] = character + "=";
+    }
+
+    private final CharSequence source;
+    private final int end;
+    private final SymbolTable symbols;
+    private final boolean exitOnError;
+    private final NumberLiterals numbers = new NumberLiterals();
+
+    private int current;
+    private int line;
+
+    // The token most recently returned by lex(): the source range of its text, the text itself
+    // once it has been materialized, and its literal value
+    private int tokenStart;
+    private int tokenEnd;
+    private String text;
+    private Object literal;
+
+    public SpartieTableScanner(CharSequence source) {
+        this(source, new SymbolTable());
+    }
+
+    // Identifiers and keywords are interned into symbols, so repeated names share one String
+    public SpartieTableScanner(CharSequence source, SymbolTable symbols) {
+        this(source, 0, source.length(), 1, symbols, true);
+    }
+
+    // Scans source[start, end), which must begin at the start of the given line. Errors are
+    // raised as ScanError so the caller decides how to report them.
+    SpartieTableScanner(CharSequence source, int start, int end, int line, SymbolTable symbols) {
+        this(source, start, end, line, symbols, false);
+    }
+
+    private SpartieTableScanner(CharSequence source, int start, int end, int line, SymbolTable symbols,
+            boolean exitOnError) {
+        this.source = source;
+        this.current = start;
+        this.end = end;
+        this.line = line;
+        this.symbols = symbols;
+        this.exitOnError = exitOnError;
+    }
+
+    public SymbolTable symbols() {
+        return symbols;
+    }
+
+    public List<Token> scan() {
+        List<Token> tokens = new ArrayList<>();
+
+        Token token;
+        while ((token = nextToken()).type != TokenType.EOF) {
+            tokens.add(token);
+        }
+        tokens.add(token);
+
+        return tokens;
+    }
+
+    // Scans the whole source into compact storage, token text is left in the source
+    public CompactTokenBuffer scanCompact() {
+        CompactTokenBuffer tokens = new CompactTokenBuffer(source);
+
+        TokenType type;
+        do {
+            type = lex();
+            tokens.add(type, tokenStart, tokenEnd - tokenStart, line, literal);
+        } while (type != TokenType.EOF);
+        tokens.trimToSize();
+
+        return tokens;
+    }
+
+    // Returns the next token, or an EOF token once the source is exhausted
+    public Token nextToken() {
+        TokenType type = lex();
+        if (type == TokenType.EOF) {
+            return new Token(type, null, line);
+        }
+
+        String text = this.text != null ? this.text : text(tokenStart, tokenEnd);
+        if (type == TokenType.STRING) {
+            return new Token(type, text, line, text);
+        }
+        return new Token(type, text, line, literal);
+    }
+
+    private TokenType lex() {
+        while (current < end) {
+            char character = source.charAt(current);
+            byte characterClass = character < 128 ? CHARACTER_CLASSES[character] : INVALID;
+
+            tokenStart = current;
+            switch (characterClass) {
+                case WHITESPACE:
+                    current++;
+                    break;
+                case NEWLINE:
+                    current++;
+                    line++;
+                    break;
+                case SINGLE:
+                    current++;
+                    return fixed(SINGLE_TEXT[character], SINGLE_TYPES[character]);
+                case COMPARISON:
+                    if (current + 1 < end && source.charAt(current + 1) == '=') {
+                        current += 2;
+                        return fixed(EQUAL_TEXT[character], EQUAL_TYPES[character]);
+                    }
+                    current++;
+                    return fixed(SINGLE_TEXT[character], SINGLE_TYPES[character]);
+                case SLASH:
+                    if (current + 1 < end && source.charAt(current + 1) == '/') {
+                        skipComment();
+                        break;
+                    }
+                    current++;
+                    return fixed(SINGLE_TEXT[character], TokenType.DIVIDE);
+                case QUOTE:
+                    return string();
+                case DIGIT:
+                    return number();
+                case ALPHA:
+                    return identifierOrReservedWord();
+                default:
+                    error(line, String.format("Unexpected character '%c' at %d", character, current));
+            }
+        }
+
+        tokenStart = tokenEnd = current;
+        text = null;
+        literal = null;
+        return TokenType.EOF;
+    }
+
+    private TokenType fixed(String text, TokenType type) {
+        tokenEnd = current;
+        this.text = text;
+        literal = null;
+        return type;
+    }
+
+    private void skipComment() {
+        // Leave the newline for lex() so the line count stays in one place
+        while (current < end && source.charAt(current) != '\n') {
+            current++;
+        }
+    }
+
+    private TokenType string() {
+        int start = current + 1;
+        int position = start;
+        while (position < end) {
+            char character = source.charAt(position);
+            if (character == '"') {
+                // The text is the string without its quotes, it is only copied out when needed
+                tokenStart = start;
+                tokenEnd = position;
+                text = null;
+                literal = null;
+                current = position + 1;
+                return TokenType.STRING;
+            }
+            if (character == '\n') {
+                break;
+            }
+            position++;
+        }
+
+        current = position;
+        error(line, "String did not terminate before new line.");
+        return null;
+    }
+
+    private TokenType number() {
+        int start = current;
+        boolean periodMatched = false;
+        while (current < end) {
+            char character = source.charAt(current);
+            if (character == '.') {
+                if (periodMatched) {
+                    // We have two periods
+                    error(line, "Invalid number with two periods");
+                }
+                periodMatched = true;
+            } else if (character < '0' || character > '9') {
+                break;
+            }
+            current++;
+        }
+
+        tokenEnd = current;
+        text = null;
+        literal = numbers.parse(source, start, current);
+        return TokenType.NUMBER;
+    }
+
+    private TokenType identifierOrReservedWord() {
+        int start = current;
+        while (current < end) {
+            char character = source.charAt(current);
+            if (character >= 128 || CHARACTER_CLASSES[character] != ALPHA) {
+                break;
+            }
+            current++;
+        }
+
+        tokenEnd = current;
+        text = symbols.name(symbols.intern(source, start, current));
+        literal = text;
+        return Keywords.lookup(source, start, current);
+    }
+
+    private String text(int start, int end) {
+        return source.subSequence(start, end).toString();
+    }
+
+    // Error handling
+    private void error(int line, String message) {
+        if (!exitOnError) {
+            throw new ScanError(line, message);
+        }
+        report(line, message);
+    }
+
+    static void report(int line, String message) {
+        System.err.printf("Error occurred on line %d : %s\n", line, message);
+        System.exit(ErrorCode.INTERPRET_ERROR);
+    }
+}
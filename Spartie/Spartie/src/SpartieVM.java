@@ -0,0 +1,197 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.Arrays;
+
+// Runs Bytecode on an operand stack in a single dispatch loop. Results and errors are the same as
+// SpartieInterpreter: arithmetic on two numbers is done inline and everything else goes through
+// Operations.
+public class SpartieVM {
+    // Marks a global slot whose declaration has not run yet
+    private static final Object UNDEFINED = new Object();
+
+    public void run(Bytecode program) {
+        byte[] code = program.code;
+        Object[] constants = program.constants;
+        Object[] stack = new Object[Math.max(1, program.maxStack)];
+        Object[] locals = new Object[program.localCount];
+        Object[] globals = new Object[program.globalNames.length];
+        Arrays.fill(globals, UNDEFINED);
+
+        int sp = 0;
+        int ip = 0;
+        while (true) {
+            byte opcode = code[ip++];
+            switch (opcode) {
+                case Bytecode.CONSTANT -> {
+                    stack[sp++] = constants[((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF)];
+                    ip += 2;
+                }
+                case Bytecode.NULL -> stack[sp++] = null;
+                case Bytecode.TRUE -> stack[sp++] = true;
+                case Bytecode.FALSE -> stack[sp++] = false;
+                case Bytecode.POP -> stack[--sp] = null;
+                case Bytecode.GET_LOCAL -> {
+                    stack[sp++] = locals[((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF)];
+                    ip += 2;
+                }
+                case Bytecode.SET_LOCAL -> {
+                    locals[((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF)] = stack[sp - 1];
+                    ip += 2;
+                }
+                case Bytecode.DEFINE_LOCAL -> {
+                    locals[((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF)] = stack[--sp];
+                    ip += 2;
+                }
+                case Bytecode.GET_GLOBAL -> {
+                    Object value = globals[((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF)];
+                    stack[sp++] = value == UNDEFINED ? null : value;
+                    ip += 2;
+                }
+                case Bytecode.SET_GLOBAL -> {
+                    int slot = ((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF);
+                    if (globals[slot] == UNDEFINED) {
+                        System.err.println("Undefined variable: " + program.globalNames[slot]);
+                        System.exit(ErrorCode.INTERPRET_ERROR);
+                    }
+                    globals[slot] = stack[sp - 1];
+                    ip += 2;
+                }
+                case Bytecode.DEFINE_GLOBAL -> {
+                    globals[((code[ip] & 0xFF) << 8) | (code[ip + 1] & 0xFF)] = stack[--sp];
+                    ip += 2;
+                }
+                case Bytecode.ADD -> {
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof Double a && right instanceof Double b
+                            ? (Object) (a + b)
+                            : Operations.binary(TokenType.ADD, program.lines[ip - 1], left, right);
+                }
+                case Bytecode.SUBTRACT -> {
+                    // Same as the tree walker, which adds
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof Double a && right instanceof Double b
+                            ? (Object) (a + b)
+                            : Operations.binary(TokenType.SUBTRACT, program.lines[ip - 1], left, right);
+                }
+                case Bytecode.MULTIPLY -> {
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof Double a && right instanceof Double b
+                            ? (Object) (a * b)
+                            : Operations.binary(TokenType.MULTIPLY, program.lines[ip - 1], left, right);
+                }
+                case Bytecode.DIVIDE -> {
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof Double a && right instanceof Double b
+                            ? (Object) (a / b)
+                            : Operations.binary(TokenType.DIVIDE, program.lines[ip - 1], left, right);
+                }
+                case Bytecode.EQUIVALENT -> {
+                    Object right = stack[--sp];
+                    stack[sp - 1] = Operations.isEquivalent(stack[sp - 1], right);
+                }
+                case Bytecode.NOT_EQUAL -> {
+                    Object right = stack[--sp];
+                    stack[sp - 1] = !Operations.isEquivalent(stack[sp - 1], right);
+                }
+                case Bytecode.LESS_THAN -> {
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof Double a && right instanceof Double b
+                            ? (Object) (a < b)
+                            : Operations.binary(TokenType.LESS_THAN, program.lines[ip - 1], left, right);
+                }
+                case Bytecode.LESS_EQUAL -> {
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof Double a && right instanceof Double b
+                            ? (Object) (a <= b)
+                            : Operations.binary(TokenType.LESS_EQUAL, program.lines[ip - 1], left, right);
+                }
+                case Bytecode.GREATER_THAN -> {
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof Double a && right instanceof Double b
+                            ? (Object) (a > b)
+                            : Operations.binary(TokenType.GREATER_THAN, program.lines[ip - 1], left, right);
+                }
+                case Bytecode.GREATER_EQUAL -> {
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    stack[sp - 1] = left instanceof Double a && right instanceof Double b
+                            ? (Object) (a >= b)
+                            : Operations.binary(TokenType.GREATER_EQUAL, program.lines[ip - 1], left, right);
+                }
+                case Bytecode.NOT -> stack[sp - 1] = !Operations.isTrue(stack[sp - 1]);
+                case Bytecode.NEGATE ->
+                        stack[sp - 1] = Operations.unary(TokenType.SUBTRACT, program.lines[ip - 1], stack[sp - 1]);
+                case Bytecode.JUMP -> ip = readInt(code, ip);
+                case Bytecode.JUMP_IF_FALSE -> {
+                    if (Operations.isTrue(stack[--sp])) {
+                        ip += 4;
+                    } else {
+                        ip = readInt(code, ip);
+                    }
+                    stack[sp] = null;
+                }
+                case Bytecode.JUMP_IF_TRUE_OR_POP -> {
+                    if (Operations.isTrue(stack[sp - 1])) {
+                        ip = readInt(code, ip);
+                    } else {
+                        stack[--sp] = null;
+                        ip += 4;
+                    }
+                }
+                case Bytecode.JUMP_IF_FALSE_OR_POP -> {
+                    if (!Operations.isTrue(stack[sp - 1])) {
+                        ip = readInt(code, ip);
+                    } else {
+                        stack[--sp] = null;
+                        ip += 4;
+                    }
+                }
+                case Bytecode.PRINT -> {
+                    Object value = stack[--sp];
+                    stack[sp] = null;
+                    System.out.println(value.toString());
+                }
+                case Bytecode.RETURN -> {
+                    return;
+                }
+                case Bytecode.WIDE -> {
+                    // Only programs with more than 65535 constants or variables get here
+                    byte wide = code[ip];
+                    int slot = readInt(code, ip + 1);
+                    ip += 5;
+                    switch (wide) {
+                        case Bytecode.CONSTANT -> stack[sp++] = constants[slot];
+                        case Bytecode.GET_LOCAL -> stack[sp++] = locals[slot];
+                        case Bytecode.SET_LOCAL -> locals[slot] = stack[sp - 1];
+                        case Bytecode.DEFINE_LOCAL -> locals[slot] = stack[--sp];
+                        case Bytecode.GET_GLOBAL -> stack[sp++] = globals[slot] == UNDEFINED ? null : globals[slot];
+                        case Bytecode.SET_GLOBAL -> {
+                            if (globals[slot] == UNDEFINED) {
+                                System.err.println("Undefined variable: " + program.globalNames[slot]);
+                                System.exit(ErrorCode.INTERPRET_ERROR);
+                            }
+                            globals[slot] = stack[sp - 1];
+                        }
+                        case Bytecode.DEFINE_GLOBAL -> globals[slot] = stack[--sp];
+                        default -> throw new IllegalStateException("Unknown wide opcode " + wide + " at " + (ip - 6));
+                    }
+                }
+                default -> throw new IllegalStateException("Unknown opcode " + opcode + " at " + (ip - 1));
+            }
+        }
+    }
+
+    private static int readInt(byte[] code, int offset) {
+        return (code[offset] << 24) | ((code[offset + 1] & 0xFF) << 16) | ((code[offset + 2] & 0xFF) << 8)
+                | (code[offset + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,84 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Runs a program as a tree of self-specializing Nodes. Variables are resolved to frame slots as
+// in SpartieInterpreter.runResolved(); operators rewrite themselves as they learn their operand
+// types (see Node).
+public class SpecializingInterpreter {
+    // Marks a global slot whose declaration has not run yet
+    static final Object UNDEFINED = new Object();
+
+    Object[] globals;
+    Frame frame;
+
+    public void run(List<Statement> statements) {
+        globals = new Object[Resolver.resolve(statements)];
+        Arrays.fill(globals, UNDEFINED);
+
+        for (Node.StatementNode node : build(statements)) {
+            node.execute(this);
+        }
+    }
+
+    private static Node.StatementNode[] build(List<Statement> statements) {
+        List<Node.StatementNode> nodes = new ArrayList<>(statements.size());
+        for (Statement statement : statements) {
+            Node.StatementNode node = build(statement);
+            if (node != null) {
+                nodes.add(node);
+            }
+        }
+        return nodes.toArray(new Node.StatementNode[0]);
+    }
+
+    private static Node.StatementNode build(Statement statement) {
+        return switch (statement) {
+            case Statement.PrintStatement printStatement -> new Node.PrintNode(build(printStatement.expression));
+            case Statement.ExpressionStatement expressionStatement ->
+                    new Node.ExpressionStatementNode(build(expressionStatement.expression));
+            case Statement.VariableStatement variableStatement ->
+                    new Node.DefineNode(variableStatement.depth, variableStatement.slot,
+                            variableStatement.initializer == null ? null : build(variableStatement.initializer));
+            case Statement.BlockStatement blockStatement ->
+                    new Node.BlockNode(blockStatement.slots, build(blockStatement.statements));
+            case Statement.IfStatement ifStatement ->
+                    new Node.IfNode(build(ifStatement.condition), build(ifStatement.thenBranch),
+                            build(ifStatement.elseBranch));
+            case Statement.WhileStatement whileStatement ->
+                    new Node.WhileNode(build(whileStatement.condition), build(whileStatement.body));
+            case Statement.ForStatement forStatement ->
+                    new Node.ForNode(forStatement.slots, build(forStatement.initializer), build(forStatement.condition),
+                            forStatement.increment == null ? null : build(forStatement.increment),
+                            build(forStatement.body));
+            case null, default -> null;
+        };
+    }
+
+    private static Node.ExpressionNode build(Expression expression) {
+        return switch (expression) {
+            case Expression.LiteralExpression literalExpression -> new Node.LiteralNode(literalExpression.literalValue);
+            case Expression.VariableExpression variableExpression -> variableExpression.depth == Resolver.GLOBAL
+                    ? new Node.GlobalReadNode(variableExpression.slot)
+                    : new Node.LocalReadNode(variableExpression.depth, variableExpression.slot);
+            case Expression.AssignmentExpression assignmentExpression ->
+                    new Node.AssignNode(assignmentExpression.name, assignmentExpression.depth,
+                            assignmentExpression.slot, build(assignmentExpression.value));
+            case Expression.ParenthesesExpression parenthesesExpression -> build(parenthesesExpression.expression);
+            case Expression.LogicalExpression logicalExpression ->
+                    new Node.LogicalNode(logicalExpression.operator.type == TokenType.OR,
+                            build(logicalExpression.left), build(logicalExpression.right));
+            case Expression.BinaryExpression binaryExpression ->
+                    new Node.UninitializedBinaryNode(binaryExpression.operator.type, binaryExpression.operator.line,
+                            build(binaryExpression.left), build(binaryExpression.right));
+            case Expression.UnaryExpression unaryExpression -> unaryExpression.operator.type == TokenType.NOT
+                    ? new Node.NotNode(build(unaryExpression.right))
+                    : new Node.UninitializedNegateNode(unaryExpression.operator.line, build(unaryExpression.right));
+            case null, default -> new Node.LiteralNode(null);
+        };
+    }
+}
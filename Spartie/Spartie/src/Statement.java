@@ -2,6 +2,7 @@
 /**
  * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
  */
+import java.util.Arrays;
 import java.util.List;
 
 public class Statement {
@@ -15,6 +16,38 @@ public class Statement {
         }
     }
 
+    static class ForStatement extends Statement {
+        // Null when the for loop has no initializer or no increment
+        public Statement initializer;
+        public Expression condition;
+        public Expression increment;
+        public Statement body;
+        // Set by the Resolver: 1 when the initializer declares the loop variable, which then
+        // lives in a frame of its own for the whole loop, otherwise 0
+        public int slots = Resolver.UNRESOLVED;
+
+        public ForStatement(Statement initializer, Expression condition, Expression increment, Statement body) {
+            this.initializer = initializer;
+            this.condition = condition;
+            this.increment = increment;
+            this.body = body;
+        }
+
+        // The same loop as a block and a while statement, for engines that do not run for loops
+        // themselves. Must be called before the program is resolved.
+        public Statement desugar() {
+            Statement loop = body;
+            if (increment != null) {
+                loop = new BlockStatement(Arrays.asList(loop, new ExpressionStatement(increment)));
+            }
+            loop = new WhileStatement(condition, loop);
+            if (initializer != null) {
+                loop = new BlockStatement(Arrays.asList(initializer, loop));
+            }
+            return loop;
+        }
+    }
+
     static class IfStatement extends Statement {
         public Expression condition;
         public Statement thenBranch;
@@ -37,6 +70,9 @@ public class Statement {
 
     static class BlockStatement extends Statement {
         public List<Statement> statements;
+        // Set by the Resolver: variables declared directly in this block. A block without any
+        // does not need a frame of its own.
+        public int slots = Resolver.UNRESOLVED;
 
         public BlockStatement(List<Statement> statements) {
             this.statements = statements;
@@ -51,9 +87,43 @@ public class Statement {
         }
     }
 
+    static class FunctionStatement extends Statement {
+        public Token name;
+        public List<Token> parameters;
+        public List<Statement> body;
+        // Set by the Resolver: where the function is stored, as for VariableStatement, and the size
+        // of its call frame, which holds the parameters first and then the variables declared
+        // directly in the body
+        public int depth = Resolver.UNRESOLVED;
+        public int slot = Resolver.UNRESOLVED;
+        public int slots = Resolver.UNRESOLVED;
+
+        public FunctionStatement(Token name, List<Token> parameters, List<Statement> body) {
+            this.name = name;
+            this.parameters = parameters;
+            this.body = body;
+        }
+    }
+
+    static class ReturnStatement extends Statement {
+        public Token keyword;
+        // Null for a bare return
+        public Expression value;
+
+        public ReturnStatement(Token keyword, Expression value) {
+            this.keyword = keyword;
+            this.value = value;
+        }
+    }
+
     static class VariableStatement extends Statement {
         public Token name;
         public Expression initializer;
+        // Set by the Resolver: 0 for the enclosing block's frame or Resolver.GLOBAL, and the slot there
+        public int depth = Resolver.UNRESOLVED;
+        public int slot = Resolver.UNRESOLVED;
+        // Set by the Environment walker the first time it runs: the SymbolEnvironment id of name
+        public int symbol = Resolver.UNRESOLVED;
 
         public VariableStatement(Token name, Expression initializer) {
             this.name = name;
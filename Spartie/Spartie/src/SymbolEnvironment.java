@@ -0,0 +1,149 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.Arrays;
+
+// Environment for the unresolved tree walker, keyed by symbol id instead of by name. Every name
+// gets one id for the whole process, which SpartieInterpreter caches on the tree the first time a
+// node runs, so a lookup compares ints instead of hashing and comparing Strings, and walks out
+// through the enclosing scopes in a loop.
+//
+// A scope keeps its variables in an int key array with the values inline in an Object array. Up to
+// SMALL_CAPACITY variables, which covers most blocks, the keys are kept in order and scanned;
+// past that they move into an open addressing table. Nothing is allocated until the first
+// define, so the scopes of blocks that only read and assign cost one object.
+public class SymbolEnvironment {
+    private static final int SMALL_CAPACITY = 4;
+    private static final int[] NO_KEYS = new int[0];
+    private static final Object[] NO_VALUES = new Object[0];
+
+    // Ids for names, shared by every interpreter so ids cached on a tree stay valid for all of them
+    private static final SymbolTable SYMBOLS = new SymbolTable();
+
+    final SymbolEnvironment enclosing;
+
+    // Symbol id + 1, zero marks an empty slot
+    private int[] keys = NO_KEYS;
+    private Object[] values = NO_VALUES;
+    private int count = 0;
+    // Bit symbol % 64 is set for every symbol defined here, so most scopes that do not define a
+    // symbol are passed over without looking at their keys
+    private long defined = 0;
+
+    public SymbolEnvironment() {
+        this(null);
+    }
+
+    public SymbolEnvironment(SymbolEnvironment enclosing) {
+        this.enclosing = enclosing;
+    }
+
+    // The symbol id of a name
+    static synchronized int symbol(String name) {
+        return SYMBOLS.intern(name);
+    }
+
+    // Define - Create a variable
+    void define(int symbol, Object value) {
+        int index = find(symbol);
+        defined |= 1L << symbol;
+        if (index >= 0) {
+            values[index] = value;
+        } else if (keys.length <= SMALL_CAPACITY && count < SMALL_CAPACITY) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, SMALL_CAPACITY);
+                values = Arrays.copyOf(values, SMALL_CAPACITY);
+            }
+            keys[count] = symbol + 1;
+            values[count] = value;
+            count++;
+        } else {
+            if ((count + 1) * 2 > keys.length) {
+                rehash(Math.max(keys.length * 2, SMALL_CAPACITY * 4));
+            }
+            insert(symbol + 1, value);
+            count++;
+        }
+    }
+
+    Object get(int symbol) {
+        long bit = 1L << symbol;
+        for (SymbolEnvironment environment = this; environment != null; environment = environment.enclosing) {
+            if ((environment.defined & bit) != 0) {
+                int index = environment.find(symbol);
+                if (index >= 0) {
+                    return environment.values[index];
+                }
+            }
+        }
+        return null;
+    }
+
+    // Assign - Replace the value of an existing variable
+    void assign(int symbol, Object value) {
+        long bit = 1L << symbol;
+        for (SymbolEnvironment environment = this; environment != null; environment = environment.enclosing) {
+            if ((environment.defined & bit) != 0) {
+                int index = environment.find(symbol);
+                if (index >= 0) {
+                    environment.values[index] = value;
+                    return;
+                }
+            }
+        }
+        // Exit on error if we get this far since the variable is undefined
+        System.err.println("Undefined variable: " + SYMBOLS.name(symbol));
+        System.exit(ErrorCode.INTERPRET_ERROR);
+    }
+
+    // Where symbol's value is in values, or -1 if this scope does not define it
+    private int find(int symbol) {
+        int[] keys = this.keys;
+        int key = symbol + 1;
+        if (keys.length <= SMALL_CAPACITY) {
+            for (int i = 0; i < count; i++) {
+                if (keys[i] == key) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(int key, Object value) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    // Moves the variables into a table of capacity slots, a power of two
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    // Ids are dense, so a multiplicative hash spreads consecutive ones apart
+    private static int slot(int key, int mask) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ hash >>> 16) & mask;
+    }
+}
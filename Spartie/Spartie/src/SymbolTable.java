@@ -0,0 +1,115 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+import java.util.Arrays;
+
+// Intern table for identifier names. Each distinct name gets one canonical String and a dense
+// symbol id, looked up straight from a source range so repeated names allocate nothing. Because
+// every occurrence of a name shares one String, map lookups on names hit the identity check in
+// String.equals and reuse the cached hash code.
+public class SymbolTable {
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Open addressing table of symbol id + 1, zero marks an empty slot
+    private int[] table = new int[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY / 2];
+    private int[] hashes = new int[INITIAL_CAPACITY / 2];
+    private int count = 0;
+
+    // Returns the symbol id for source[start, end), adding it if it is new
+    public int intern(CharSequence source, int start, int end) {
+        int hash = hash(source, start, end);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            int id = entry - 1;
+            if (hashes[id] == hash && matches(names[id], source, start, end)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(source.subSequence(start, end).toString(), hash, slot);
+    }
+
+    // Returns the symbol id for a name, adding it if it is new
+    public int intern(String name) {
+        return intern(name, 0, name.length());
+    }
+
+    // Returns the symbol id for a name, or -1 if it has never been interned
+    public int find(String name) {
+        int hash = name.hashCode();
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            int id = entry - 1;
+            if (hashes[id] == hash && names[id].equals(name)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // The canonical String for a symbol id
+    public String name(int id) {
+        return names[id];
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private int add(String name, int hash, int slot) {
+        int id = count++;
+        if (id == names.length) {
+            names = Arrays.copyOf(names, id * 2);
+            hashes = Arrays.copyOf(hashes, id * 2);
+        }
+        names[id] = name;
+        hashes[id] = hash;
+        table[slot] = id + 1;
+
+        // Keep the table at most half full
+        if (count * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return id;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < count; id++) {
+            int slot = hashes[id] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+    }
+
+    // Same as String.hashCode, so Strings and source ranges land in the same slots
+    private static int hash(CharSequence source, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        return hash;
+    }
+
+    private static boolean matches(String name, CharSequence source, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != source.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,20 @@
+
+/**
+ * @author Khanh Khuat (ltk30), Michelle Lo (mxl1347)
+ */
+// Tokens as SpartieParser consumes them: one at a time, with a small window of lookahead
+public interface TokenStream {
+    // The current token, without consuming it
+    default Token peek() {
+        return peek(0);
+    }
+
+    // The token distance places after the current one, without consuming anything
+    Token peek(int distance);
+
+    // The most recently consumed token
+    Token previous();
+
+    // Consume the current token and return it
+    Token advance();
+}